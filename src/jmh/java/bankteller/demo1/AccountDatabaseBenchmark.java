@@ -0,0 +1,248 @@
+package bankteller.demo1;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.ThreadParams;
+
+/**
+ * This class benchmarks the AccountDatabase operations that run against a full database without changing who holds
+ *  accounts: deposits and withdrawals, the three listings, and the month-end update.
+ * Deposits and withdrawals reach holders with a Zipfian distribution and are measured with one thread and with
+ *  several threads sharing the database. Run with "mvn -P jmh verify"; the gc profiler is always enabled.
+ * The cost of AccountMetrics is measured by running with "-p metrics=false,true".
+ * @author Afsana Rahman, Mini Sinha
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AccountDatabaseBenchmark {
+
+    private static final int SHARED_THREADS = 4;
+    private static final int REQUESTS = 1 << 16;
+    private static final double AMOUNT = 1.0;
+    private static final long SEED = 20231018L;
+
+    /**
+     * This class holds the database shared by all threads of a benchmark.
+     */
+    @State(Scope.Benchmark)
+    public static class DatabaseState {
+
+        @Param({"1000", "100000", "1000000", "10000000"})
+        public int size;
+
+        @Param({BenchmarkAccounts.HASHED, BenchmarkAccounts.COLUMNAR})
+        public String layout;
+
+        @Param("false")
+        public boolean metrics;
+
+        Account[] accounts;
+        ZipfianSampler sampler;
+        AccountDatabase database;
+
+        /**
+         * Method that generates the accounts and opens them in a new database.
+         */
+        @Setup(Level.Trial)
+        public void setUp() {
+            accounts = BenchmarkAccounts.generate(size, SEED);
+            sampler = new ZipfianSampler(size);
+            database = BenchmarkAccounts.fill(layout, accounts);
+            if (metrics) {
+                database.setMetrics(new AccountMetrics());
+            }
+        }
+    }
+
+    /**
+     * This class holds the deposits and withdrawals one thread enters, cycling through them in order.
+     */
+    @State(Scope.Thread)
+    public static class RequestState {
+
+        Account[] deposits;
+        Account[] withdrawals;
+        int next;
+
+        /**
+         * Method that draws the holders this thread reaches, with a different sequence for each thread.
+         * @param state shared database
+         * @param thread index of this thread
+         */
+        @Setup(Level.Trial)
+        public void setUp(DatabaseState state, ThreadParams thread) {
+            int[] positions = state.sampler.sample(REQUESTS, SEED + thread.getThreadIndex());
+            deposits = BenchmarkAccounts.requests(state.accounts, positions, AMOUNT);
+            withdrawals = BenchmarkAccounts.requests(state.accounts, positions, AMOUNT);
+        }
+
+        /**
+         * Method that returns the position of the next request.
+         * @return position in the request arrays
+         */
+        int next() {
+            int position = next;
+            next = (position + 1) & (REQUESTS - 1);
+            return position;
+        }
+    }
+
+    /**
+     * This class is a destination for listings that only counts the characters written, so listing benchmarks
+     *  measure formatting instead of building a string the size of the database.
+     */
+    static final class CountingAppendable implements Appendable {
+
+        long length;
+
+        /**
+         * Method that counts an appended sequence of characters.
+         * @param csq characters appended
+         * @return this destination
+         */
+        @Override
+        public Appendable append(CharSequence csq) {
+            length += csq == null ? 4 : csq.length();
+            return this;
+        }
+
+        /**
+         * Method that counts a part of an appended sequence of characters.
+         * @param csq characters appended
+         * @param start index of the first character appended
+         * @param end index one past the last character appended
+         * @return this destination
+         */
+        @Override
+        public Appendable append(CharSequence csq, int start, int end) {
+            length += end - start;
+            return this;
+        }
+
+        /**
+         * Method that counts an appended character.
+         * @param c character appended
+         * @return this destination
+         */
+        @Override
+        public Appendable append(char c) {
+            length++;
+            return this;
+        }
+    }
+
+    /**
+     * Benchmark of a deposit into a Zipfian-chosen account, with one thread.
+     * @param state shared database
+     * @param requests deposits of this thread
+     */
+    @Benchmark
+    public void deposit(DatabaseState state, RequestState requests) {
+        state.database.deposit(requests.deposits[requests.next()]);
+    }
+
+    /**
+     * Benchmark of a deposit into a Zipfian-chosen account, with several threads depositing at once.
+     * @param state shared database
+     * @param requests deposits of this thread
+     */
+    @Benchmark
+    @Threads(SHARED_THREADS)
+    public void depositShared(DatabaseState state, RequestState requests) {
+        state.database.deposit(requests.deposits[requests.next()]);
+    }
+
+    /**
+     * Benchmark of a withdrawal from a Zipfian-chosen account, with one thread.
+     * @param state shared database
+     * @param requests withdrawals of this thread
+     * @return true if the withdrawal was made
+     */
+    @Benchmark
+    public boolean withdraw(DatabaseState state, RequestState requests) {
+        return state.database.withdraw(requests.withdrawals[requests.next()]);
+    }
+
+    /**
+     * Benchmark of a withdrawal from a Zipfian-chosen account, with several threads withdrawing at once.
+     * @param state shared database
+     * @param requests withdrawals of this thread
+     * @return true if the withdrawal was made
+     */
+    @Benchmark
+    @Threads(SHARED_THREADS)
+    public boolean withdrawShared(DatabaseState state, RequestState requests) {
+        return state.database.withdraw(requests.withdrawals[requests.next()]);
+    }
+
+    /**
+     * Benchmark of listing all accounts.
+     * @param state shared database
+     * @return number of characters listed
+     * @throws IOException never, as the destination does not fail
+     */
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public long print(DatabaseState state) throws IOException {
+        CountingAppendable out = new CountingAppendable();
+        state.database.print(out);
+        return out.length;
+    }
+
+    /**
+     * Benchmark of listing all accounts ordered by type.
+     * @param state shared database
+     * @return number of characters listed
+     * @throws IOException never, as the destination does not fail
+     */
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public long printByAccountType(DatabaseState state) throws IOException {
+        CountingAppendable out = new CountingAppendable();
+        state.database.printByAccountType(out);
+        return out.length;
+    }
+
+    /**
+     * Benchmark of listing all accounts with their monthly fees and interest.
+     * @param state shared database
+     * @return number of characters listed
+     * @throws IOException never, as the destination does not fail
+     */
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public long printFeeAndInterest(DatabaseState state) throws IOException {
+        CountingAppendable out = new CountingAppendable();
+        state.database.printFeeAndInterest(out);
+        return out.length;
+    }
+
+    /**
+     * Benchmark of applying monthly fees and interest to every account.
+     * Balances keep growing from one update to the next, which does not change the work each update does.
+     * @param state shared database
+     * @return totals of the update
+     */
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public MonthEndSummary updateBalances(DatabaseState state) {
+        return state.database.updateBalances();
+    }
+}
@@ -0,0 +1,156 @@
+package bankteller.demo1;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.ThreadParams;
+
+/**
+ * This class benchmarks opening and closing accounts, which change the database and so cannot be repeated forever
+ *  against the same one.
+ * Each iteration starts from a freshly filled database and times one batch of openings or closings per thread;
+ *  the score is the time of a whole batch. Openings add holders who are new to the database, and closings reach
+ *  holders with a Zipfian distribution, so popular accounts are also closed again, which is rejected.
+ * Run with "mvn -P jmh verify"; the gc profiler is always enabled.
+ * @author Afsana Rahman, Mini Sinha
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, batchSize = AccountLifecycleBenchmark.BATCH)
+@Measurement(iterations = 10, batchSize = AccountLifecycleBenchmark.BATCH)
+@Fork(1)
+public class AccountLifecycleBenchmark {
+
+    static final int BATCH = 10_000;
+
+    private static final int SHARED_THREADS = 4;
+    private static final long SEED = 20231018L;
+    private static final long NEW_HOLDER_SEED = 19700101L;
+
+    /**
+     * This class holds the database shared by all threads of a benchmark, filled again before every iteration.
+     */
+    @State(Scope.Benchmark)
+    public static class DatabaseState {
+
+        @Param({"1000", "100000", "1000000", "10000000"})
+        public int size;
+
+        @Param({BenchmarkAccounts.HASHED, BenchmarkAccounts.COLUMNAR})
+        public String layout;
+
+        Account[] accounts;
+        ZipfianSampler sampler;
+        AccountDatabase database;
+
+        /**
+         * Method that generates the accounts the database is filled with.
+         */
+        @Setup(Level.Trial)
+        public void generate() {
+            accounts = BenchmarkAccounts.generate(size, SEED);
+            sampler = new ZipfianSampler(size);
+        }
+
+        /**
+         * Method that fills a new database, undoing the openings and closings of the last iteration.
+         */
+        @Setup(Level.Iteration)
+        public void fill() {
+            database = null; // lets the last database be collected while the next one fills
+            database =BenchmarkAccounts.fill(layout, accounts);
+        }
+    }
+
+    /**
+     * This class holds the openings and closings one thread enters in each iteration.
+     */
+    @State(Scope.Thread)
+    public static class RequestState {
+
+        Account[] openings;
+        Account[] closings;
+        int next;
+
+        /**
+         * Method that generates new holders to open accounts for and draws the holders to close accounts of, with a
+         *  different sequence for each thread.
+         * @param state shared database
+         * @param thread index of this thread
+         */
+        @Setup(Level.Trial)
+        public void setUp(DatabaseState state, ThreadParams thread) {
+            openings = BenchmarkAccounts.generate(BATCH, NEW_HOLDER_SEED + thread.getThreadIndex());
+            int[] positions = state.sampler.sample(BATCH, SEED + thread.getThreadIndex());
+            closings = BenchmarkAccounts.requests(state.accounts, positions, 0);
+        }
+
+        /**
+         * Method that starts the batch of an iteration from its first request.
+         */
+        @Setup(Level.Iteration)
+        public void rewind() {
+            next = 0;
+        }
+    }
+
+    /**
+     * Benchmark of opening an account for a new holder, with one thread.
+     * @param state shared database
+     * @param requests openings of this thread
+     * @return true if the account was opened
+     */
+    @Benchmark
+    public boolean open(DatabaseState state, RequestState requests) {
+        Account opening = requests.openings[requests.next++];
+        return state.database.open(BenchmarkAccounts.withBalance(opening, opening.getBalance()));
+    }
+
+    /**
+     * Benchmark of opening an account for a new holder, with several threads opening at once.
+     * @param state shared database
+     * @param requests openings of this thread
+     * @return true if the account was opened
+     */
+    @Benchmark
+    @Threads(SHARED_THREADS)
+    public boolean openShared(DatabaseState state, RequestState requests) {
+        Account opening = requests.openings[requests.next++];
+        return state.database.open(BenchmarkAccounts.withBalance(opening, opening.getBalance()));
+    }
+
+    /**
+     * Benchmark of closing a Zipfian-chosen account, with one thread.
+     * @param state shared database
+     * @param requests closings of this thread
+     * @return true if the account was closed
+     */
+    @Benchmark
+    public boolean close(DatabaseState state, RequestState requests) {
+        return state.database.close(requests.closings[requests.next++]);
+    }
+
+    /**
+     * Benchmark of closing a Zipfian-chosen account, with several threads closing at once.
+     * @param state shared database
+     * @param requests closings of this thread
+     * @return true if the account was closed
+     */
+    @Benchmark
+    @Threads(SHARED_THREADS)
+    public boolean closeShared(DatabaseState state, RequestState requests) {
+        return state.database.close(requests.closings[requests.next++]);
+    }
+}
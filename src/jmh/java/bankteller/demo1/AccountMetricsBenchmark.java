@@ -0,0 +1,86 @@
+package bankteller.demo1;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * This class benchmarks what AccountMetrics adds to each deposit or withdrawal: finding the thread's recorder,
+ *  picking the operations to time, and counting the outcome, with the default sampling rate.
+ * The differences between whole deposits with "-p metrics=false,true" in AccountDatabaseBenchmark are smaller than
+ *  the differences between forks, so this measures the added work on its own. Run with "mvn -P jmh verify".
+ * @author Afsana Rahman, Mini Sinha
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(3)
+public class AccountMetricsBenchmark {
+
+    private static final int SHARED_THREADS = 4;
+
+    /**
+     * This class holds the metrics shared by all threads of a benchmark.
+     */
+    @State(Scope.Benchmark)
+    public static class MetricsState {
+
+        AccountMetrics metrics;
+
+        /**
+         * Method that creates metrics with the default sampling rate.
+         */
+        @Setup
+        public void setUp() {
+            metrics = new AccountMetrics();
+        }
+    }
+
+    /**
+     * Benchmark of measuring one deposit, with one thread.
+     * @param state shared metrics
+     * @return start time of the deposit, or NOT_TIMED
+     */
+    @Benchmark
+    public long deposit(MetricsState state) {
+        return measure(state.metrics);
+    }
+
+    /**
+     * Benchmark of measuring one deposit, with several threads measuring at once.
+     * @param state shared metrics
+     * @return start time of the deposit, or NOT_TIMED
+     */
+    @Benchmark
+    @Threads(SHARED_THREADS)
+    public long depositShared(MetricsState state) {
+        return measure(state.metrics);
+    }
+
+    /**
+     * Helper method that does what AccountDatabase.deposit() does with the metrics around the deposit itself.
+     * @param metrics metrics to record the deposit in
+     * @return start time of the deposit, or NOT_TIMED
+     */
+    private static long measure(AccountMetrics metrics) {
+        AccountMetrics.Recorder recorder = metrics.recorder();
+        long start = recorder.start(AccountMetrics.Operation.DEPOSIT);
+        if (start == AccountMetrics.NOT_TIMED) {
+            recorder.count(AccountMetrics.Operation.DEPOSIT, OperationOutcome.DEPOSITED);
+        } else {
+            recorder.record(AccountMetrics.Operation.DEPOSIT, OperationOutcome.DEPOSITED, start);
+        }
+        return start;
+    }
+}
@@ -0,0 +1,137 @@
+package bankteller.demo1;
+
+import java.util.SplittableRandom;
+
+/**
+ * This class builds the accounts and databases the benchmarks run against.
+ * Accounts are generated from a seed, so every run and every fork works on the same accounts. Each account has its
+ *  own holder, so none is rejected for a second Checking account, and balances are large enough that the benchmarked
+ *  withdrawals never run an account dry.
+ * @author Afsana Rahman, Mini Sinha
+ */
+public final class BenchmarkAccounts {
+
+    /**
+     * Database layout that keeps one object per account, as AccountDatabase does.
+     */
+    public static final String HASHED = "hashed";
+
+    /**
+     * Database layout that keeps accounts column by column, as ColumnarAccountDatabase does.
+     */
+    public static final String COLUMNAR = "columnar";
+
+    private static final int NAME_LETTERS = 12;
+    private static final int FIRST_YEAR = 1950;
+    private static final int YEARS = 50;
+    private static final int MONTHS = 12;
+    private static final int DAYS = 28;
+    private static final int CAMPUSES = 3;
+    private static final double MIN_BALANCE = 100_000_000;
+    private static final double MAX_BALANCE = 1_000_000_000;
+
+    /**
+     * This class only holds static helpers and is never instantiated.
+     */
+    private BenchmarkAccounts() {
+    }
+
+    /**
+     * Method that generates accounts of all four types, each with its own holder.
+     * @param count number of accounts
+     * @param seed seed of the accounts, so the same seed always gives the same accounts
+     * @return accounts generated
+     */
+    public static Account[] generate(int count, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        Account[] accounts = new Account[count];
+        for (int i = 0; i < count; i++) {
+            Profile holder = new Profile(name(random), name(random), Date.fromPackedInt(
+                    (FIRST_YEAR + random.nextInt(YEARS)) * 10000 + (1 + random.nextInt(MONTHS)) * 100
+                            + 1 + random.nextInt(DAYS)));
+            double balance = random.nextDouble(MIN_BALANCE, MAX_BALANCE);
+            switch (AccountType.of(random.nextInt(AccountDatabase.NUM_TYPES))) {
+                case CHECKING:
+                    accounts[i] = new Checking(holder, balance);
+                    break;
+                case COLLEGE_CHECKING:
+                    accounts[i] = new CollegeChecking(holder, balance, random.nextInt(CAMPUSES));
+                    break;
+                case MONEY_MARKET:
+                    accounts[i] = new MoneyMarket(holder, balance);
+                    break;
+                default:
+                    accounts[i] = new Savings(holder, balance, random.nextInt(2));
+                    break;
+            }
+        }
+        return accounts;
+    }
+
+    /**
+     * Method that creates an account naming the same holder and type as the given one, holding a different balance.
+     * Used both for copies to open and for the deposits, withdrawals, and closings the teller would enter.
+     * @param account account to copy
+     * @param balance balance of the new account
+     * @return new account
+     */
+    public static Account withBalance(Account account, double balance) {
+        Profile holder = account.getHolder();
+        switch (account.getAccountType()) {
+            case CHECKING:
+                return new Checking(holder, balance);
+            case COLLEGE_CHECKING:
+                return new CollegeChecking(holder, balance, ((CollegeChecking) account).getCampus().getCampusCode());
+            case MONEY_MARKET:
+                return new MoneyMarket(holder, balance);
+            default:
+                return new Savings(holder, balance, ((Savings) account).getLoyal());
+        }
+    }
+
+    /**
+     * Method that creates a database with the given layout and opens copies of the given accounts in it.
+     * The accounts themselves are left untouched, so they can fill a new database after benchmarks change this one.
+     * @param layout HASHED or COLUMNAR
+     * @param accounts accounts to open
+     * @return database holding the accounts
+     */
+    public static AccountDatabase fill(String layout, Account[] accounts) {
+        AccountDatabase database = COLUMNAR.equals(layout)
+                ? new ColumnarAccountDatabase(accounts.length)
+                : new AccountDatabase(accounts.length);
+        for (Account account : accounts) {
+            database.open(withBalance(account, account.getBalance()));
+        }
+        return database;
+    }
+
+    /**
+     * Method that creates the accounts a teller would enter to reach the accounts at the given positions.
+     * @param accounts accounts in the database
+     * @param positions positions of the accounts to reach
+     * @param amount amount of each account created
+     * @return one account per position
+     */
+    public static Account[] requests(Account[] accounts, int[] positions, double amount) {
+        Account[] requests = new Account[positions.length];
+        for (int i = 0; i < positions.length; i++) {
+            requests[i] = withBalance(accounts[positions[i]], amount);
+        }
+        return requests;
+    }
+
+    /**
+     * Helper method that generates a capitalized name of random letters.
+     * @param random source of randomness
+     * @return name
+     */
+    private static String name(SplittableRandom random) {
+        char[] letters = new char[NAME_LETTERS];
+        letters[0] = (char) ('A' + random.nextInt(26));
+        for (int i = 1; i < NAME_LETTERS; i++) {
+            letters[i] = (char) ('a' + random.nextInt(26));
+        }
+        return new String(letters);
+    }
+}
@@ -0,0 +1,103 @@
+package bankteller.demo1;
+
+import java.util.SplittableRandom;
+
+/**
+ * This class draws account positions with a Zipfian distribution, so a few holders are visited far more often than
+ *  the rest, as at a real branch.
+ * Position 0 is the most popular, position 1 the next, and so on. The sampler uses the method of Gray et al.,
+ *  "Quickly Generating Billion-Record Synthetic Databases", which needs one pass over the positions to set up and
+ *  constant time per sample after that.
+ * @author Afsana Rahman, Mini Sinha
+ */
+public class ZipfianSampler {
+
+    /**
+     * Skew used by default, the one YCSB uses for its Zipfian workloads.
+     */
+    public static final double DEFAULT_SKEW = 0.99;
+
+    private final int count;
+    private final double skew;
+    private final double zetaN;
+    private final double alpha;
+    private final double eta;
+    private final double secondThreshold;
+
+    /**
+     * Constructor that creates a sampler over the given number of positions with the default skew.
+     * @param count number of positions, at least 1
+     */
+    public ZipfianSampler(int count) {
+        this(count, DEFAULT_SKEW);
+    }
+
+    /**
+     * Constructor that creates a sampler over the given number of positions.
+     * @param count number of positions, at least 1
+     * @param skew Zipfian exponent, greater than 0 and less than 1
+     */
+    public ZipfianSampler(int count, double skew) {
+        this.count = count;
+        this.skew = skew;
+        this.zetaN = zeta(count, skew);
+        this.alpha = 1.0 / (1.0 - skew);
+        this.eta = (1.0 - Math.pow(2.0 / count, 1.0 - skew)) / (1.0 - zeta(2, skew) / zetaN);
+        this.secondThreshold = 1.0 + Math.pow(0.5, skew);
+    }
+
+    /**
+     * Method that draws one position.
+     * @param random source of randomness
+     * @return position from 0 to count - 1
+     */
+    public int next(SplittableRandom random) {
+        double u = random.nextDouble();
+        double uz = u * zetaN;
+        if (uz < 1.0) {
+            return 0;
+        }
+        if (uz < secondThreshold && count > 1) {
+            return 1;
+        }
+        int position = (int) (count * Math.pow(eta * u - eta + 1.0, alpha));
+        return Math.min(position, count - 1);
+    }
+
+    /**
+     * Method that draws a sequence of positions.
+     * @param samples number of positions to draw
+     * @param seed seed of the sequence, so every run draws the same positions
+     * @return positions drawn
+     */
+    public int[] sample(int samples, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        int[] positions = new int[samples];
+        for (int i = 0; i < samples; i++) {
+            positions[i] = next(random);
+        }
+        return positions;
+    }
+
+    /**
+     * Method that returns the Zipfian exponent of the sampler.
+     * @return skew
+     */
+    public double getSkew() {
+        return skew;
+    }
+
+    /**
+     * Helper method that computes the generalized harmonic number sum(1 / i^skew) for i from 1 to n.
+     * @param n number of terms
+     * @param skew exponent
+     * @return sum of the terms
+     */
+    private static double zeta(int n, double skew) {
+        double sum = 0;
+        for (int i = 1; i <= n; i++) {
+            sum += 1.0 / Math.pow(i, skew);
+        }
+        return sum;
+    }
+}
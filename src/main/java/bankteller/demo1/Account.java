@@ -1,25 +1,40 @@
 package bankteller.demo1;
 
-import java.text.DecimalFormat;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
 
 /**
  * This abstract class represents an open or closed account held by an account holder with current balance.
+ * Balances are kept as a whole number of cents so deposits, withdrawals, interest, and fees are exact.
+ * Balance changes are atomic compare-and-set updates, so tellers can work on the same account without a lock.
  * @author Afsana Rahman, Mini Sinha
  */
-public abstract class Account {
+public abstract sealed class Account permits Checking, Savings {
+
+    protected static final int CENTS_PER_DOLLAR = 100;
+
+    private static final VarHandle BALANCE;
+
+    static {
+        try {
+            BALANCE = MethodHandles.lookup().findVarHandle(Account.class, "balanceCents", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
 
     protected Profile holder;
-    protected boolean closed;
-    protected double balance;
+    protected volatile boolean closed;
+    protected volatile long balanceCents;
 
     /**
      * Constructor that creates new account.
      * @param holder person/profile who owns the account
-     * @param balance initial deposit
+     * @param balance initial deposit, rounded half-even to the nearest cent
      */
     public Account(Profile holder, double balance) {
         this.holder = holder;
-        this.balance = balance;
+        this.balanceCents = MoneyFormat.toCents(balance);
         this.closed = false;
     }
 
@@ -32,11 +47,20 @@ public abstract class Account {
     }
 
     /**
-     * Method that returns the current balance of the account.
+     * Method that returns the current balance of the account in dollars.
+     * Kept for callers that work in dollars; getBalanceCents() returns the exact balance.
      * @return current balance
      */
     public double getBalance() {
-        return balance;
+        return (double) balanceCents / CENTS_PER_DOLLAR;
+    }
+
+    /**
+     * Method that returns the current balance of the account in cents.
+     * @return current balance in cents
+     */
+    public long getBalanceCents() {
+        return balanceCents;
     }
 
     /**
@@ -44,7 +68,7 @@ public abstract class Account {
      * This should only be called when an account is being closed.
      */
     public void setBalance() {
-        this.balance = 0;
+        this.balanceCents = 0;
     }
 
     /**
@@ -70,7 +94,16 @@ public abstract class Account {
 
         Account account = (Account) obj;
         Profile holder = account.getHolder();
-        return this.holder.equals(holder) && this.getType().equals(account.getType());
+        return this.getAccountType() == account.getAccountType() && this.holder.equals(holder);
+    }
+
+    /**
+     * Method that returns a hash code consistent with equals, based on the holder and account type.
+     * @return hash code of the account
+     */
+    @Override
+    public int hashCode() {
+        return this.holder.hashCode() * 31 + this.getAccountType().ordinal();
     }
 
     /**
@@ -81,29 +114,100 @@ public abstract class Account {
      */
     @Override
     public String toString() {
-        DecimalFormat decimalFormat = new DecimalFormat("#,##0.00");
-        decimalFormat.setGroupingSize(3);
-        String toString = getType() + "::" + this.holder.toString() + "::Balance $" + decimalFormat.format(this.balance);
+        StringBuilder toString = new StringBuilder();
+        appendTo(toString);
+        return toString.toString();
+    }
+
+    /**
+     * Method that writes current account information to the given StringBuilder in the same format as toString().
+     * Subclasses add their own fields by overriding this method, so reports can reuse one buffer for every account.
+     * @param sb StringBuilder the account information is written to
+     */
+    protected void appendTo(StringBuilder sb) {
+        sb.append(getDisplayType()).append("::");
+        this.holder.appendTo(sb);
+        sb.append("::Balance $");
+        MoneyFormat.appendCents(sb, this.balanceCents);
         if(this.closed) {
-            toString += "::CLOSED";
+            sb.append("::CLOSED");
         }
-        return toString;
+    }
+
+    /**
+     * Method that returns the account type as it is shown in account listings.
+     * @return account type shown in listings
+     */
+    protected String getDisplayType() {
+        return getType();
     }
 
     /**
      * Withdraws given amount from current account balance.
-     * @param amount money to be subtracted
+     * @param amount money to be subtracted, rounded half-even to the nearest cent
      */
     public void withdraw(double amount) {
-        this.balance -= amount;
+        withdrawCents(MoneyFormat.toCents(amount));
+    }
+
+    /**
+     * Withdraws given number of cents from current account balance.
+     * The balance may become negative; withdrawCentsIfSufficient() only withdraws when the balance covers the amount.
+     * @param cents money to be subtracted in cents
+     * @throws ArithmeticException if the balance would overflow, in which case it is left unchanged
+     */
+    public void withdrawCents(long cents) {
+        long balance;
+        do {
+            balance = this.balanceCents;
+        } while (!BALANCE.compareAndSet(this, balance, Math.subtractExact(balance, cents)));
+    }
+
+    /**
+     * Withdraws given number of cents from current account balance if the balance is at least that amount.
+     * The balance check and the withdrawal are one atomic update, so concurrent withdrawals can never overdraw.
+     * @param cents money to be subtracted in cents
+     * @return true if the amount was withdrawn, false if the balance is insufficient
+     */
+    public boolean withdrawCentsIfSufficient(long cents) {
+        long balance;
+        do {
+            balance = this.balanceCents;
+            if (balance < cents) {
+                return false;
+            }
+        } while (!BALANCE.compareAndSet(this, balance, balance - cents));
+        return true;
     }
 
     /**
      * Deposits given amount to current account balance.
-     * @param amount money to be added
+     * @param amount money to be added, rounded half-even to the nearest cent
      */
     public void deposit(double amount) {
-        this.balance += amount;
+        depositCents(MoneyFormat.toCents(amount));
+    }
+
+    /**
+     * Deposits given number of cents to current account balance.
+     * @param cents money to be added in cents
+     * @throws ArithmeticException if the balance would overflow, in which case it is left unchanged
+     */
+    public void depositCents(long cents) {
+        long balance;
+        do {
+            balance = this.balanceCents;
+        } while (!BALANCE.compareAndSet(this, balance, Math.addExact(balance, cents)));
+    }
+
+    /**
+     * Method that sets the balance to a new value only if it still holds the expected value.
+     * @param expectedCents balance the update was computed from, in cents
+     * @param newCents new balance in cents
+     * @return true if the balance was updated, false if it changed in the meantime
+     */
+    boolean compareAndSetBalanceCents(long expectedCents, long newCents) {
+        return BALANCE.compareAndSet(this, expectedCents, newCents);
     }
 
     /**
@@ -121,16 +225,70 @@ public abstract class Account {
     public abstract double monthlyInterest();
 
     /**
-     * Abstract method that returns the monthly fee on current account.
+     * Method that returns the monthly fee on current account.
+     * @return monthly fee for current account
+     */
+    public double fee() {
+        return feeFor(this.balanceCents);
+    }
+
+    /**
+     * Abstract method that returns the monthly fee current account would be charged with the given balance.
+     * @param balanceCents balance the fee is charged on, in cents
      * @return monthly fee for current account
      */
-    public abstract double fee();
+    protected abstract double feeFor(long balanceCents);
+
+    /**
+     * Method that returns the interest the current balance earns in one month, in cents.
+     * Interest is rounded half-even to the nearest cent, the same as the monthly interest listed.
+     * @return monthly interest in cents
+     */
+    public long monthlyInterestCents() {
+        return monthlyInterestCents(this.balanceCents);
+    }
+
+    /**
+     * Method that returns the interest the given balance earns in one month on current account, in cents.
+     * Interest is worked out in dollars and rounded half-even on that value, as the listing always has, so an amount
+     *  just above half a cent in binary, like the $0.005 earned on $60.00 in Checking, rounds up.
+     * @param balanceCents balance earning interest, in cents
+     * @return monthly interest in cents
+     */
+    long monthlyInterestCents(long balanceCents) {
+        return MoneyFormat.toCents((double) balanceCents / CENTS_PER_DOLLAR * monthlyInterest());
+    }
+
+    /**
+     * Method that returns the monthly fee on current account, in cents.
+     * @return monthly fee in cents
+     */
+    public long feeCents() {
+        return MoneyFormat.toCents(fee());
+    }
+
+    /**
+     * Method that returns the monthly fee current account would be charged with the given balance, in cents.
+     * @param balanceCents balance the fee is charged on, in cents
+     * @return monthly fee in cents
+     */
+    long feeCents(long balanceCents) {
+        return MoneyFormat.toCents(feeFor(balanceCents));
+    }
 
     /**
      * Abstract method that returns the account type of the current account.
      * Account types are Checking, College Checking, Savings, and Money Market.
      * @return account type
      */
-    public abstract String getType();
+    public abstract AccountType getAccountType();
+
+    /**
+     * Method that returns the name of the account type of the current account.
+     * @return account type name, such as "Checking" or "Money Market"
+     */
+    public String getType() {
+        return getAccountType().getName();
+    }
 
 }
\ No newline at end of file
@@ -0,0 +1,30 @@
+package bankteller.demo1;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * This class is the Java Flight Recorder event for one AccountDatabase operation over every account: a listing or
+ *  the month-end update. Every one is recorded, with the number of accounts it covered.
+ * @author Afsana Rahman, Mini Sinha
+ */
+@Name("bankteller.AccountBatch")
+@Label("Account Batch")
+@Category({"Bank Teller", "Account Database"})
+@Description("A listing or month-end update over every account")
+@StackTrace(false)
+public class AccountBatchEvent extends Event {
+
+    @Label("Operation")
+    public String operation;
+
+    @Label("Accounts")
+    public int accounts;
+
+    @Label("Outcome")
+    public String outcome;
+}
@@ -1,35 +1,101 @@
 package bankteller.demo1;
 
-import java.text.DecimalFormat;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * This class represents a database of all types of bank accounts.
+ * The database is safe to share between teller sessions and worker threads. Opening and closing accounts hold
+ *  the lock for the holder, chosen from a fixed set of striped locks by the holder's hash, so operations on
+ *  different holders run in parallel while opens and closes for the same holder, including the one-checking-account
+ *  rule in open, happen one at a time. Deposits and withdrawals take no lock: they update the balance with an atomic
+ *  compare-and-set, so even a busy account is never blocked. Money Market accounts are the exception, as their
+ *  loyalty and withdrawal count change along with the balance, so their deposits and withdrawals hold the holder
+ *  lock. Listings read the accounts without blocking tellers.
  * @author Afsana Rahman, Mini Sinha
  */
 public class AccountDatabase {
 
-    private static final int MONEYMARKET_BALANCE = 2500;
+    private static final long MONEYMARKET_BALANCE_CENTS = 2500 * 100;
+
+    // checked on every operation on a single account; an event is only created when the type is being recorded
+    private static final AccountOperationEvent OPERATION_EVENTS = new AccountOperationEvent();
 
     private static final int ADD_ARRAY_SPACE = 4;
-    private static final int NOT_FOUND = -1;
+    private static final int MONTH_END_BATCH = 8192;
+    private static final int LOCK_STRIPES = 64;
+
+    // type numbers, equal to the ordinals of AccountType
+    static final int CHECKING = 0;
+    static final int COLLEGE_CHECKING = 1;
+    static final int MONEY_MARKET = 2;
+    static final int SAVINGS = 3;
+    static final int NUM_TYPES = 4;
+
+    private static final int ANY_CHECKING = (1 << CHECKING) | (1 << COLLEGE_CHECKING);
+
+    private volatile Account[] accounts;
+    private volatile int numAcct;
+    private final ConcurrentHashMap<Account, Account> index;
+    private final ConcurrentHashMap<Profile, Integer> holderTypes;
+    private final ProfileRegistry holders;
+    private Account[][] buckets;
+    private int[] bucketSizes;
 
-    private Account[] accounts;
-    private int numAcct;
+    private final ReentrantLock[] stripes = new ReentrantLock[LOCK_STRIPES];
+    private final ReentrantLock storageLock = new ReentrantLock();
+
+    private volatile AccountJournal journal;
+    private volatile AccountMetrics metrics;
 
     /**
-     * Constructor that initializes a new account database, able to hold up to 4 accounts.
+     * Constructor that initializes a new account database, able to hold up to 4 accounts before growing.
      */
     public AccountDatabase() {
-        this.accounts = new Account[ADD_ARRAY_SPACE];
+        this(ADD_ARRAY_SPACE);
+    }
+
+    /**
+     * Constructor that initializes a new account database pre-sized for an expected number of accounts.
+     * The database still grows past this capacity if more accounts are opened.
+     * @param expectedCapacity number of accounts the database should hold without growing
+     */
+    public AccountDatabase(int expectedCapacity) {
+        int capacity = Math.max(expectedCapacity, ADD_ARRAY_SPACE);
+        this.accounts = new Account[capacity];
         this.numAcct = 0;
+        this.index = new ConcurrentHashMap<>(hashCapacity(capacity));
+        this.holderTypes = new ConcurrentHashMap<>(hashCapacity(capacity));
+        this.holders = new ProfileRegistry(capacity);
+        this.buckets = new Account[NUM_TYPES][ADD_ARRAY_SPACE];
+        this.bucketSizes = new int[NUM_TYPES];
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * Helper method that returns the initial capacity a HashMap needs to hold the given number of entries without rehashing.
+     * @param expectedSize expected number of entries
+     * @return initial capacity for the map
+     */
+    static int hashCapacity(int expectedSize) {
+        return (int) Math.min((long) expectedSize * 4 / 3 + 1, Integer.MAX_VALUE);
     }
 
     /**
      * Method that returns the current list of accounts held in the database.
+     * The list is a snapshot: accounts opened afterwards are not added to it.
      * @return list of accounts in current database
      */
     public Account[] getAccounts() {
-        return accounts;
+        int count = numAcct;
+        return Arrays.copyOf(accounts, count);
     }
 
     /**
@@ -41,34 +107,133 @@ public class AccountDatabase {
     }
 
     /**
-     * Method that finds a given (open or closed) account in the current database
+     * Method that finds a given (open or closed) account in the current database.
+     * Accounts are looked up in a hash index keyed by holder and account type, so the lookup does not scan the database.
      * @param account account to be searched for
-     * @return index of the account in the database -- returns NOT_FOUND if not found
+     * @return the account held in the database -- returns null if not found
      */
-    private int find(Account account) {
+    private Account find(Account account) {
         if (account == null) {
-            return NOT_FOUND;
+            return null;
         }
+        return index.get(account);
+    }
 
-        for (int i = 0; i < this.numAcct; i++) {
-            if (accounts[i].equals(account)) {
-                return i;
-            }
+    /**
+     * Method that attaches a journal that every later change to the database is recorded in.
+     * While a journal is attached, deposits and withdrawals hold the holder lock so that each holder's changes are
+     *  journaled in the order they were applied.
+     * @param journal journal to record changes in -- null to stop journaling
+     */
+    public void setJournal(AccountJournal journal) {
+        this.journal = journal;
+    }
+
+    /**
+     * Method that returns the journal changes to the database are recorded in.
+     * @return attached journal -- null if changes are not journaled
+     */
+    public AccountJournal getJournal() {
+        return journal;
+    }
+
+    /**
+     * Method that attaches metrics that count and time every later operation on the database.
+     * @param metrics metrics to record operations in -- null to stop measuring
+     */
+    public void setMetrics(AccountMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * Method that returns the metrics operations on the database are recorded in.
+     * @return attached metrics -- null if operations are not measured
+     */
+    public AccountMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Helper method that starts the flight recorder event for an operation on one account, if it is being recorded.
+     * @return event that has begun -- null if the event is not being recorded
+     */
+    private static AccountOperationEvent beginOperationEvent() {
+        if (!OPERATION_EVENTS.isEnabled()) {
+            return null;
         }
-        return NOT_FOUND;
+        AccountOperationEvent event = new AccountOperationEvent();
+        event.begin();
+        return event;
     }
 
     /**
-     * Method that creates space in the database to hold more accounts by adding 4 more possible account slots.
+     * Helper method that ends the flight recorder event of an operation on one account and commits it if it is kept.
+     * @param event flight recorder event begun for the operation
+     * @param operation operation that ended
+     * @param account account given to the operation
+     * @param outcome how the operation ended
      */
-    private void grow() {
-        Account[] increasedAccounts = new Account[accounts.length + ADD_ARRAY_SPACE];
+    private static void endOperationEvent(AccountOperationEvent event, AccountMetrics.Operation operation,
+                                          Account account, OperationOutcome outcome) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.operation = operation.label();
+            event.accountType = account == null ? null : account.getType();
+            event.outcome = outcome.label();
+            event.commit();
+        }
+    }
 
-        for (int i = 0; i < accounts.length; i++) {
-            increasedAccounts[i] = accounts[i];
+    /**
+     * Helper method that records a listing or month-end update that has ended, in the metrics if there are any and
+     *  as a flight recorder event if one is being recorded.
+     * @param operation operation that ended
+     * @param numAccounts number of accounts the operation covered
+     * @param outcome how the operation ended
+     * @param metrics attached metrics -- null if operations are not measured
+     * @param start value returned by metrics.start() for the operation
+     * @param event flight recorder event begun for the operation
+     */
+    private static void finishBatch(AccountMetrics.Operation operation, int numAccounts, OperationOutcome outcome,
+                                    AccountMetrics metrics, long start, AccountBatchEvent event) {
+        if (metrics != null) {
+            metrics.record(operation, outcome, start);
+        }
+        event.end();
+        if (event.shouldCommit()) {
+            event.operation = operation.label();
+            event.accounts = numAccounts;
+            event.outcome = outcome.label();
+            event.commit();
         }
+    }
+
+    /**
+     * Method that returns the account held in the database with the same holder and type as the given account.
+     * The lookup uses the same hash index as every other operation, so it does not scan the database.
+     * @param account account to be searched for
+     * @return the account held in the database -- returns null if not found
+     */
+    public Account getAccount(Account account) {
+        return find(account);
+    }
+
+    /**
+     * Method that returns the lock guarding every account of the given holder.
+     * @param holder account holder
+     * @return lock stripe for the holder
+     */
+    private ReentrantLock lockFor(Profile holder) {
+        int hash = holder.hashCode();
+        return stripes[(hash ^ (hash >>> 16)) & (LOCK_STRIPES - 1)];
+    }
 
-        accounts = increasedAccounts;
+    /**
+     * Method that creates space in the database to hold more accounts by doubling the number of account slots.
+     * Growing geometrically keeps the cost of adding an account amortized constant.
+     */
+    private void grow() {
+        accounts = Arrays.copyOf(accounts, Math.max(accounts.length * 2, ADD_ARRAY_SPACE));
     }
 
     /**
@@ -80,52 +245,140 @@ public class AccountDatabase {
      * @return true if the account was successfully opened, false otherwise
      */
     public boolean open(Account account) {
-        if (!validAccount(account)) return false;
-
-        if (accounts == null) {
-            new AccountDatabase();
-        } else if (accounts[accounts.length - 1] != null) {
-            grow();
-        }
-
-        for (int i = 0; i < this.numAcct; i++) {
-            if (accounts[i].equals(account)) {
-                if (accounts[i].isClosed()) {
-                    accounts[i].close(false);
-                    deposit(account);
-                    if (account.getType().equals("College Checking")) {
-                        CollegeChecking tempAcct = (CollegeChecking) account;
-                        CollegeChecking databaseTempAcct = (CollegeChecking) accounts[i];
-                        databaseTempAcct.changeCampus(tempAcct.getCampus());
-                    }
-                    return true;
-                } else {
-                    return false;
-                }
-            } else if (accounts[i].getHolder().equals(account.getHolder())) {
-                if (accounts[i].getType().contains("Checking") && account.getType().contains("Checking")) {
-                    return false;
+        return openAccount(account).succeeded();
+    }
+
+    /**
+     * Method that opens a new account or reopens an existing account like open(), telling the caller in the same
+     *  atomic step whether the account was new, reopened, or why it was not opened.
+     * @param account account to be opened/added to the database
+     * @return OPENED or REOPENED if the account was opened, otherwise why it was not
+     */
+    OperationOutcome openAccount(Account account) {
+        AccountMetrics metrics = this.metrics;
+        AccountMetrics.Recorder recorder = metrics == null ? null : metrics.recorder();
+        long start = recorder == null ? AccountMetrics.NOT_TIMED : recorder.start(AccountMetrics.Operation.OPEN);
+        AccountOperationEvent event = beginOperationEvent();
+        OperationOutcome outcome = tryOpen(account);
+        if (recorder != null) {
+            recorder.record(AccountMetrics.Operation.OPEN, outcome, start);
+        }
+        if (event != null) {
+            endOperationEvent(event, AccountMetrics.Operation.OPEN, account, outcome);
+        }
+        return outcome;
+    }
+
+    /**
+     * Method that opens a new account or reopens an existing account, following the rules of open().
+     * @param account account to be opened/added to the database
+     * @return OPENED or REOPENED if the account was opened, otherwise why it was not
+     */
+    OperationOutcome tryOpen(Account account) {
+        if (!validAccount(account)) return OperationOutcome.INVALID;
+
+        AccountJournal journal = this.journal;
+        OperationOutcome outcome;
+        long record;
+        ReentrantLock lock = lockFor(account.getHolder());
+        lock.lock();
+        try {
+            Account existing = find(account);
+            if (existing != null) {
+                if (!existing.isClosed()) {
+                    return OperationOutcome.ALREADY_OPEN;
                 }
+                reopen(existing, account);
+                outcome = OperationOutcome.REOPENED;
+            } else if (account.getAccountType().isChecking() && (heldTypes(account.getHolder()) & ANY_CHECKING) != 0) {
+                return OperationOutcome.CHECKING_LIMIT;
+            } else {
+                addAcc(account);
+                outcome = OperationOutcome.OPENED;
             }
+            record = journal == null ? 0 : journal.logOpen(account);
+        } finally {
+            lock.unlock();
+        }
+        awaitJournal(journal, record);
+        return outcome;
+    }
+
+    /**
+     * Helper method that waits until a journal record is as durable as the journal's policy requires.
+     * Called after releasing the holder lock, so other changes can be written to the journal in the same batch.
+     * @param journal journal the record was appended to -- null if the change was not journaled
+     * @param record sequence number of the record
+     */
+    static void awaitJournal(AccountJournal journal, long record) {
+        if (journal != null) {
+            journal.awaitDurable(record);
         }
-        addAcc(account);
-        return true;
     }
 
     /**
-     * Method that adds account to the next available slot in the account list in the database.
+     * Method that reopens a closed account held in the database with the information of the account being opened.
+     * The initial deposit is added to the balance and College Checking accounts take on the new campus.
+     * @param stored closed account held in the database
+     * @param account account being opened
+     */
+    void reopen(Account stored, Account account) {
+        stored.close(false);
+        depositTo(stored, account);
+        if (account.getAccountType() == AccountType.COLLEGE_CHECKING) {
+            CollegeChecking tempAcct = (CollegeChecking) account;
+            CollegeChecking databaseTempAcct = (CollegeChecking) stored;
+            databaseTempAcct.changeCampus(tempAcct.getCampus());
+        }
+    }
+
+    /**
+     * Method that appends account to the end of the account list in the database, growing the list if it is full.
+     * The account is also appended to the bucket for its type, which keeps the by-type ordering up to date.
+     * Its holder is replaced with the holder's shared profile, so all of a holder's accounts hold one profile.
      * @param account account to be added to the database
      */
     private void addAcc(Account account) {
-        for (int i = 0; i < accounts.length; i++) {
-            if (accounts[i] == null) {
-                accounts[i] = account;
-                numAcct++;
-                break;
+        account.holder = holders.intern(account.getHolder());
+        storageLock.lock();
+        try {
+            if (numAcct == accounts.length) {
+                grow();
             }
+            int type = account.getAccountType().ordinal();
+            if (bucketSizes[type] == buckets[type].length) {
+                buckets[type] = Arrays.copyOf(buckets[type], buckets[type].length * 2);
+            }
+            buckets[type][bucketSizes[type]++] = account;
+            accounts[numAcct] = account;
+            numAcct++;
+        } finally {
+            storageLock.unlock();
         }
+        index.put(account, account);
+        holderTypes.merge(account.getHolder(), typeBit(account.getAccountType()), (held, added) -> held | added);
     }
 
+    /**
+     * Method that returns the account types a holder has in the database, open or closed.
+     * Types are recorded as bits in a holder-keyed index that is updated whenever an account is added.
+     * Closed accounts stay in the database, so closing or reopening an account does not change the recorded types.
+     * @param holder account holder to look up
+     * @return bit set of account types held, 0 if the holder has no accounts
+     */
+    private int heldTypes(Profile holder) {
+        Integer types = holderTypes.get(holder);
+        return types == null ? 0 : types;
+    }
+
+    /**
+     * Helper method that returns the bit used to record an account type in the holder index.
+     * @param type account type
+     * @return bit for the given account type
+     */
+    private static int typeBit(AccountType type) {
+        return 1 << type.ordinal();
+    }
 
     /**
      * Method that checks the validity of a new account to be opened.
@@ -135,28 +388,33 @@ public class AccountDatabase {
      * @param account account to be checked for credentials
      * @return true if the account is valid, false otherwise
      */
-    private boolean validAccount(Account account) {
+    boolean validAccount(Account account) {
         if (!account.getHolder().getDob().isValid()) {
             return false;
-        } else if (account.getHolder().getDob().compareTo(new Date()) >= 0) {
+        } else if (account.getHolder().getDob().compareTo(Date.today()) >= 0) {
             return false;
-        } else if (account.getBalance() <= 0) {
+        } else if (account.getBalanceCents() <= 0) {
             return false;
         } else {
-            if (account.getType().equals("College Checking")) {
-                CollegeChecking collegeCheckingAcc = (CollegeChecking) account;
-                if (collegeCheckingAcc.toString().contains("null")) {
-                    return false;
-                }
-            } else if (account.getType().equals("Savings")) {
-                Savings savingsAcc = (Savings) account;
-                if (!(savingsAcc.getLoyal() == 1 || savingsAcc.getLoyal() == 0)) {
-                    return false;
-                }
-            } else if (account.getType().equals("Money Market")) {
-                if (account.getBalance() < MONEYMARKET_BALANCE) {
-                    return false;
-                }
+            switch (account.getAccountType()) {
+                case COLLEGE_CHECKING:
+                    if (((CollegeChecking) account).getCampus() == null) {
+                        return false;
+                    }
+                    break;
+                case SAVINGS:
+                    Savings savingsAcc = (Savings) account;
+                    if (!(savingsAcc.getLoyal() == 1 || savingsAcc.getLoyal() == 0)) {
+                        return false;
+                    }
+                    break;
+                case MONEY_MARKET:
+                    if (account.getBalanceCents() < MONEYMARKET_BALANCE_CENTS) {
+                        return false;
+                    }
+                    break;
+                default:
+                    break;
             }
         }
         return true;
@@ -170,23 +428,67 @@ public class AccountDatabase {
      * @return true if account was successfully closed, false otherwise
      */
     public boolean close(Account account) {
-        int indexOfClose = find(account);
-        if (indexOfClose == NOT_FOUND) {
-            return false;
+        AccountMetrics metrics = this.metrics;
+        AccountMetrics.Recorder recorder = metrics == null ? null : metrics.recorder();
+        long start = recorder == null ? AccountMetrics.NOT_TIMED : recorder.start(AccountMetrics.Operation.CLOSE);
+        AccountOperationEvent event = beginOperationEvent();
+        OperationOutcome outcome = tryClose(account);
+        if (recorder != null) {
+            recorder.record(AccountMetrics.Operation.CLOSE, outcome, start);
         }
+        if (event != null) {
+            endOperationEvent(event, AccountMetrics.Operation.CLOSE, account, outcome);
+        }
+        return outcome.succeeded();
+    }
 
-        accounts[indexOfClose].setBalance();
-        if (accounts[indexOfClose].isClosed()) {
+    /**
+     * Method that closes an existing account, following the rules of close().
+     * @param account account to be closed
+     * @return CLOSED if the account was closed, otherwise why it was not
+     */
+    OperationOutcome tryClose(Account account) {
+        if (account == null) {
+            return OperationOutcome.NOT_FOUND;
+        }
+        AccountJournal journal = this.journal;
+        boolean closed;
+        long record;
+        ReentrantLock lock = lockFor(account.getHolder());
+        lock.lock();
+        try {
+            Account accountToClose = find(account);
+            if (accountToClose == null) {
+                return OperationOutcome.NOT_FOUND;
+            }
+            closed = closeAccount(accountToClose);
+            record = journal == null ? 0 : journal.logClose(account);
+        } finally {
+            lock.unlock();
+        }
+        awaitJournal(journal, record);
+        return closed ? OperationOutcome.CLOSED : OperationOutcome.ALREADY_CLOSED;
+    }
+
+    /**
+     * Method that closes an account held in the database, resetting its balance and Savings loyalty.
+     * @param accountToClose account held in the database
+     * @return true if account was closed, false if it was already closed
+     */
+    boolean closeAccount(Account accountToClose) {
+        accountToClose.setBalance();
+        if (accountToClose.isClosed()) {
             return false;
         }
-        accounts[indexOfClose].close(true);
+        accountToClose.close(true);
 
-        if (accounts[indexOfClose].getType().equals("Money Market")) {
-            MoneyMarket tempAcct = (MoneyMarket) accounts[indexOfClose];
-            tempAcct.changeLoyalty(0);
-        } else if (accounts[indexOfClose].getType().equals("Savings")) {
-            Savings tempAcct = (Savings) accounts[indexOfClose];
-            tempAcct.changeLoyalty(0);
+        switch (accountToClose.getAccountType()) {
+            case MONEY_MARKET:
+            case SAVINGS:
+                ((Savings) accountToClose).changeLoyalty(0);
+                break;
+            default:
+                break;
         }
 
         return true;
@@ -194,20 +496,87 @@ public class AccountDatabase {
 
     /**
      * This method serves as a function to deposit a valid given amount to an existing open account.
+     * The deposit is an atomic update of the balance and does not wait for other tellers unless it is journaled or
+     *  made to a Money Market account.
      * @param account account holding information of account to be deposited to and balance to be withdrawn
      */
     public void deposit(Account account) {
+        AccountMetrics metrics = this.metrics;
+        AccountMetrics.Recorder recorder = metrics == null ? null : metrics.recorder();
+        long start = recorder == null ? AccountMetrics.NOT_TIMED : recorder.start(AccountMetrics.Operation.DEPOSIT);
+        AccountOperationEvent event = beginOperationEvent();
+        OperationOutcome outcome = tryDeposit(account);
+        if (recorder != null) {
+            recorder.record(AccountMetrics.Operation.DEPOSIT, outcome, start);
+        }
+        if (event != null) {
+            endOperationEvent(event, AccountMetrics.Operation.DEPOSIT, account, outcome);
+        }
+    }
+
+    /**
+     * Method that deposits to an existing account, following the rules of deposit().
+     * @param account account holding information of account to be deposited to and balance to be deposited
+     * @return DEPOSITED if the amount was deposited, NOT_FOUND if there is no such account
+     */
+    OperationOutcome tryDeposit(Account account) {
         if (account == null) {
-            return;
+            return OperationOutcome.NOT_FOUND;
+        }
+        AccountJournal journal = this.journal;
+        if (journal == null && !needsHolderLock(account)) {
+            Account databaseAccount = find(account);
+            if (databaseAccount == null) {
+                return OperationOutcome.NOT_FOUND;
+            }
+            depositTo(databaseAccount, account);
+            return OperationOutcome.DEPOSITED;
         }
-        int accountIndex = find(account);
-        if (accountIndex != NOT_FOUND) {
-            accounts[accountIndex].deposit(account.getBalance());
+
+        long record = 0;
+        ReentrantLock lock = lockFor(account.getHolder());
+        lock.lock();
+        try {
+            Account databaseAccount = find(account);
+            if (databaseAccount == null) {
+                return OperationOutcome.NOT_FOUND;
+            }
+            depositTo(databaseAccount, account);
+            if (journal != null) {
+                record = journal.logDeposit(account);
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (journal != null) {
+            journal.awaitDurable(record);
         }
+        return OperationOutcome.DEPOSITED;
+    }
 
-        if (account.getType().equals("Money Market")) {
-            MoneyMarket tempAcct = (MoneyMarket) accounts[accountIndex];
-            if (account.getBalance() >= MONEYMARKET_BALANCE) {
+    /**
+     * Helper method that checks if a deposit or withdrawal must hold the holder lock even when it is not journaled.
+     * A Money Market account changes its loyalty and withdrawal count along with its balance, which a compare-and-set
+     *  of the balance alone cannot keep consistent with one another.
+     * @param account account holding information of account to be deposited to or withdrawn from
+     * @return true for a Money Market account, false otherwise
+     */
+    private static boolean needsHolderLock(Account account) {
+        return account.getAccountType() == AccountType.MONEY_MARKET;
+    }
+
+    /**
+     * Method that deposits the balance of the given account into an account held in the database.
+     * Money Market accounts become loyal when $2500 or more is deposited at once.
+     * @param databaseAccount account held in the database
+     * @param account account holding the amount to be deposited
+     */
+    void depositTo(Account databaseAccount, Account account) {
+        databaseAccount.depositCents(account.getBalanceCents());
+
+        if (account.getAccountType() == AccountType.MONEY_MARKET) {
+            MoneyMarket tempAcct = (MoneyMarket) databaseAccount;
+            if (account.getBalanceCents() >= MONEYMARKET_BALANCE_CENTS) {
                 tempAcct.changeLoyalty(1);
             }
         }
@@ -216,138 +585,494 @@ public class AccountDatabase {
     /**
      * This method serves as a function to withdraw a valid given amount from an existing open account.
      * The account must have a sufficient balance to withdraw the amount requested; balances cannot become negative.
+     * The balance check and the withdrawal are one atomic update and do not wait for other tellers unless the
+     *  withdrawal is journaled or made from a Money Market account.
      * @param account account holding information of account to be withdrawn from and amount to be withdrawn
      * @return true if withdrawal was successful, false otherwise
      */
     public boolean withdraw(Account account) {
+        AccountMetrics metrics = this.metrics;
+        AccountMetrics.Recorder recorder = metrics == null ? null : metrics.recorder();
+        long start = recorder == null ? AccountMetrics.NOT_TIMED : recorder.start(AccountMetrics.Operation.WITHDRAW);
+        AccountOperationEvent event = beginOperationEvent();
+        OperationOutcome outcome = tryWithdraw(account);
+        if (recorder != null) {
+            recorder.record(AccountMetrics.Operation.WITHDRAW, outcome, start);
+        }
+        if (event != null) {
+            endOperationEvent(event, AccountMetrics.Operation.WITHDRAW, account, outcome);
+        }
+        return outcome.succeeded();
+    }
+
+    /**
+     * Method that withdraws from an existing account, following the rules of withdraw().
+     * @param account account holding information of account to be withdrawn from and amount to be withdrawn
+     * @return WITHDRAWN if the amount was withdrawn, otherwise why it was not
+     */
+    OperationOutcome tryWithdraw(Account account) {
 
         if (account == null) {
-            return false;
+            return OperationOutcome.NOT_FOUND;
         }
 
-        double withdrawAmount = account.getBalance();
+        long withdrawAmount = account.getBalanceCents();
         if (withdrawAmount <= 0) {
-            return false;
+            return OperationOutcome.INVALID;
         }
 
-        int accountNum = find(account);
-        if (accountNum == NOT_FOUND) {
-            return false;
+        AccountJournal journal = this.journal;
+        if (journal == null && !needsHolderLock(account)) {
+            Account databaseAccount = find(account);
+            if (databaseAccount == null) {
+                return OperationOutcome.NOT_FOUND;
+            }
+            return withdrawFrom(databaseAccount, withdrawAmount)
+                    ? OperationOutcome.WITHDRAWN : OperationOutcome.INSUFFICIENT_FUNDS;
         }
 
-        double currentBalance = accounts[accountNum].getBalance();
-        if (currentBalance < withdrawAmount) {
-            return false;
+        long record = 0;
+        ReentrantLock lock = lockFor(account.getHolder());
+        lock.lock();
+        try {
+            Account databaseAccount = find(account);
+            if (databaseAccount == null) {
+                return OperationOutcome.NOT_FOUND;
+            }
+            if (!withdrawFrom(databaseAccount, withdrawAmount)) {
+                return OperationOutcome.INSUFFICIENT_FUNDS;
+            }
+            if (journal != null) {
+                record = journal.logWithdraw(account);
+            }
+        } finally {
+            lock.unlock();
         }
+        if (journal != null) {
+            journal.awaitDurable(record);
+        }
+        return OperationOutcome.WITHDRAWN;
+    }
 
-        accounts[accountNum].withdraw(withdrawAmount);
+    /**
+     * Method that withdraws an amount from an account held in the database if its balance is sufficient.
+     * Money Market withdrawals are counted, and the account loses loyalty if its balance drops below $2500.
+     * @param databaseAccount account held in the database
+     * @param withdrawAmount amount to be withdrawn in cents
+     * @return true if withdrawal was successful, false if the balance is insufficient
+     */
+    boolean withdrawFrom(Account databaseAccount, long withdrawAmount) {
+        return databaseAccount.withdrawCentsIfSufficient(withdrawAmount);
+    }
 
-        if (account.getType().equals("Money Market")) {
-            MoneyMarket tempAcct = (MoneyMarket) accounts[accountNum];
-            tempAcct.addWithdrawals();
-            if (accounts[accountNum].getBalance() < MONEYMARKET_BALANCE) {
-                tempAcct.changeLoyalty(0);
+    /**
+     * This method applies one month of interest and fees to every account in the database.
+     * Each account first earns its monthly interest, then is charged the fee for its new balance.
+     * Accounts are split into batches that are updated in parallel on the common fork/join pool. Every account is
+     *  updated independently and totals are exact sums of cents, so the result is identical to a sequential pass.
+     * Every holder lock is held for the whole update, so no account is opened or closed while it runs. Deposits and
+     *  withdrawals that are not journaled keep running: each account's interest and fee are applied as one atomic
+     *  update of its balance.
+     * @return interest paid and fees charged per account type
+     */
+    public MonthEndSummary updateBalances() {
+        AccountMetrics metrics = this.metrics;
+        long start = metrics == null ? 0 : metrics.start(AccountMetrics.Operation.UPDATE_BALANCES);
+        AccountBatchEvent event = new AccountBatchEvent();
+        event.begin();
+        int numAccounts = 0;
+        OperationOutcome outcome = OperationOutcome.FAILED;
+        try {
+            MonthEndSummary summary = updateAllBalances();
+            numAccounts = summary.getNumAccounts();
+            if (metrics != null) {
+                metrics.recordMonthEnd(numAccounts);
             }
+            outcome = OperationOutcome.COMPLETED;
+            return summary;
+        } finally {
+            finishBatch(AccountMetrics.Operation.UPDATE_BALANCES, numAccounts, outcome, metrics, start, event);
         }
-
-        return true;
     }
 
     /**
-     * This method acts as a function to print all accounts in their current ordering.
+     * Helper method that applies one month of interest and fees to every account, as described in updateBalances().
+     * @return interest paid and fees charged per account type
      */
-    public String print() {
-
-        String print = "";
-        for (int i = 0; i < this.numAcct; i++) {
-            print = print.concat(accounts[i].toString());
-            print = print.concat("\n");
+    private MonthEndSummary updateAllBalances() {
+        AccountJournal journal = this.journal;
+        MonthEndSummary summary;
+        long record;
+        lockAll();
+        try {
+            int numAccounts = getNumAcct();
+            long[] totals = ForkJoinPool.commonPool().invoke(new MonthEndTask(this, 0, numAccounts));
+            summary = new MonthEndSummary(numAccounts, Arrays.copyOfRange(totals, 0, NUM_TYPES),
+                    Arrays.copyOfRange(totals, NUM_TYPES, 2 * NUM_TYPES));
+            record = journal == null ? 0 : journal.logMonthEnd();
+        } finally {
+            unlockAll();
         }
+        awaitJournal(journal, record);
+        return summary;
+    }
 
-        print = print.concat("*end of list*");
-        print = print.concat("\n");
+    /**
+     * Helper method that takes every holder lock, in a fixed order, so no account is opened, closed, or changed
+     *  through the journal until unlockAll() is called.
+     */
+    private void lockAll() {
+        for (ReentrantLock stripe : stripes) {
+            stripe.lock();
+        }
+    }
 
-        return print;
+    /**
+     * Helper method that releases every holder lock taken by lockAll().
+     */
+    private void unlockAll() {
+        for (ReentrantLock stripe : stripes) {
+            stripe.unlock();
+        }
+    }
 
+    /**
+     * Method that copies every account in the database for a snapshot.
+     * Every holder lock is held while the accounts are copied, and the journal is moved to a new segment at the same
+     *  moment, so the snapshot holds exactly the changes journaled before that segment. Changes only pause for the
+     *  copy in memory; the snapshot is written to disk after the locks are released.
+     * @return copy of every account, with the first journal segment it does not include
+     */
+    AccountSnapshot captureSnapshot() {
+        lockAll();
+        try {
+            AccountJournal journal = this.journal;
+            long journalSegment = journal == null ? 0 : journal.rollSegment();
+            int count = numAcct;
+            Account[] accounts = this.accounts;
+            AccountSnapshot snapshot = new AccountSnapshot(count, journalSegment);
+            for (int i = 0; i < count; i++) {
+                snapshot.set(i, accounts[i]);
+            }
+            return snapshot;
+        } finally {
+            unlockAll();
+        }
     }
 
     /**
-     * This method acts as a function to print all accounts ordered by account type.
+     * Method that makes room for a number of accounts about to be restored, so the database does not grow one
+     *  doubling at a time while a snapshot is loaded. The hash indexes are not replaced, since lookups read them
+     *  without a lock; they are sized by the expected capacity given to the constructor.
+     * @param numAccounts number of accounts about to be restored
      */
-    public String printByAccountType() {
-        sortByAccountType();
+    void ensureCapacity(int numAccounts) {
+        storageLock.lock();
+        try {
+            if (accounts.length < numAcct + numAccounts) {
+                accounts = Arrays.copyOf(accounts, numAcct + numAccounts);
+            }
+        } finally {
+            storageLock.unlock();
+        }
+    }
 
-        return print();
+    /**
+     * Method that adds an account loaded from a snapshot, exactly as it was saved.
+     * The account is not validated and the change is not journaled, since it is already recorded in the snapshot.
+     * @param account account to be added to the database
+     */
+    void restore(Account account) {
+        addAcc(account);
+    }
 
+    /**
+     * Method that applies month-end interest and fees to a range of accounts and adds them to the running totals.
+     * @param from index of the first account to update
+     * @param to index one past the last account to update
+     * @param totals interest per type followed by fees per type, in cents
+     */
+    void updateBalances(int from, int to, long[] totals) {
+        Account[] accounts = this.accounts;
+        for (int i = from; i < to; i++) {
+            applyMonthEnd(accounts[i], totals);
+        }
     }
 
     /**
-     * This method acts as a function to print all accounts and their monthly fees/interest.
+     * Method that applies month-end interest and fees to one account and adds them to the running totals.
+     * Interest and fee are computed from one balance and applied with a compare-and-set, which is retried if a
+     *  deposit or withdrawal changed the balance in the meantime.
+     * @param account account to be updated
+     * @param totals interest per type followed by fees per type, in cents
      */
-    public String printFeeAndInterest() {
+    static void applyMonthEnd(Account account, long[] totals) {
+        int type = account.getAccountType().ordinal();
+        long balance;
+        long interest;
+        long fee;
+        do {
+            balance = account.getBalanceCents();
+            interest = account.monthlyInterestCents(balance);
+            fee = account.feeCents(balance + interest);
+        } while (!account.compareAndSetBalanceCents(balance, balance + interest - fee));
+        totals[type] += interest;
+        totals[NUM_TYPES + type] += fee;
+    }
 
-        String fee = "";
+    /**
+     * This class updates a range of accounts at month end, splitting large ranges in half to run in parallel.
+     */
+    private static class MonthEndTask extends RecursiveTask<long[]> {
 
-        DecimalFormat decimalFormat = new DecimalFormat("#,##0.00");
-        decimalFormat.setGroupingSize(3);
+        private static final long serialVersionUID = 1L;
 
-        fee = fee.concat("\n");
-        fee = fee.concat("*list of accounts with fee and monthly interest");
-        fee = fee.concat("\n");
+        private final AccountDatabase database;
+        private final int from;
+        private final int to;
 
-        for (int i = 0; i < numAcct; i++) {
-            double monthlyInterest = accounts[i].getBalance() * accounts[i].monthlyInterest();
-            String formatMonthlyInterest = decimalFormat.format(monthlyInterest);
+        /**
+         * Constructor that creates a task for a range of accounts.
+         * @param database database holding the accounts
+         * @param from index of the first account to update
+         * @param to index one past the last account to update
+         */
+        MonthEndTask(AccountDatabase database, int from, int to) {
+            this.database = database;
+            this.from = from;
+            this.to = to;
+        }
 
-            fee = fee.concat(accounts[i].toString() + "::fee $" + decimalFormat.format(accounts[i].fee())
-                    + "::monthly interest $" + formatMonthlyInterest);
-            fee = fee.concat("\n");
+        /**
+         * Method that updates the range, directly if it is small enough and otherwise as two parallel halves.
+         * @return interest per type followed by fees per type, in cents
+         */
+        @Override
+        protected long[] compute() {
+            if (to - from <= MONTH_END_BATCH) {
+                long[] totals = new long[2 * NUM_TYPES];
+                database.updateBalances(from, to, totals);
+                return totals;
+            }
+            int middle = (from + to) >>> 1;
+            MonthEndTask left = new MonthEndTask(database, from, middle);
+            left.fork();
+            long[] totals = new MonthEndTask(database, middle, to).compute();
+            long[] leftTotals = left.join();
+            for (int i = 0; i < totals.length; i++) {
+                totals[i] += leftTotals[i];
+            }
+            return totals;
+        }
+    }
 
+    /**
+     * This method acts as a function to print all accounts in their current ordering.
+     * @return list of all accounts, one per line, followed by "*end of list*"
+     */
+    public String print() {
+        StringBuilder print = new StringBuilder();
+        try {
+            print(print);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
         }
+        return print.toString();
+    }
 
-        fee = fee.concat("*end of list*");
-        fee = fee.concat("\n");
+    /**
+     * This method streams all accounts in their current ordering to the given output, one account per line.
+     * Output is the same as print(), but is written as it is produced instead of being built into one String.
+     * @param out destination for the listing, such as a Writer or StringBuilder
+     * @throws IOException if the destination cannot be written to
+     */
+    public void print(Appendable out) throws IOException {
+        AccountMetrics metrics = this.metrics;
+        long start = metrics == null ? 0 : metrics.start(AccountMetrics.Operation.PRINT);
+        AccountBatchEvent event = new AccountBatchEvent();
+        event.begin();
+        int numAccounts = getNumAcct();
+        OperationOutcome outcome = OperationOutcome.FAILED;
+        try {
+            printPage(out, 0, numAccounts);
+            out.append("*end of list*").append('\n');
+            outcome = OperationOutcome.COMPLETED;
+        } finally {
+            finishBatch(AccountMetrics.Operation.PRINT, numAccounts, outcome, metrics, start, event);
+        }
+    }
 
-        return fee;
+    /**
+     * This method streams one page of accounts in their current ordering to the given output, one account per line.
+     * Pages do not include the "*end of list*" line, so a listing can be shown or written a page at a time.
+     * @param out destination for the page
+     * @param offset index of the first account on the page
+     * @param limit maximum number of accounts on the page
+     * @return number of accounts written -- less than limit once the end of the list is reached
+     * @throws IOException if the destination cannot be written to
+     */
+    public int printPage(Appendable out, int offset, int limit) throws IOException {
+        StringBuilder line = new StringBuilder();
+        int end = pageEnd(offset, limit);
+        Account[] accounts = this.accounts;
+        for (int i = offset; i < end; i++) {
+            line.setLength(0);
+            accounts[i].appendTo(line);
+            out.append(line.append('\n'));
+        }
+        return Math.max(end - offset, 0);
     }
 
     /**
-     * Method that sorts the current list of accounts by account type.
-     * Order of priority is Checking, College Checking, Money Market, then Savings.
+     * This method acts as a function to print all accounts ordered by account type.
+     * @return list of all accounts ordered by type, one per line, followed by "*end of list*"
      */
-    private void sortByAccountType() {
+    public String printByAccountType() {
+        StringBuilder print = new StringBuilder();
+        try {
+            printByAccountType(print);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return print.toString();
+    }
 
-        Account[] sortedAccounts = new Account[numAcct];
-        int numSortedAccounts = 0;
+    /**
+     * This method streams all accounts ordered by account type to the given output, one account per line.
+     * @param out destination for the listing
+     * @throws IOException if the destination cannot be written to
+     */
+    public void printByAccountType(Appendable out) throws IOException {
+        AccountMetrics metrics = this.metrics;
+        long start = metrics == null ? 0 : metrics.start(AccountMetrics.Operation.PRINT_BY_TYPE);
+        AccountBatchEvent event = new AccountBatchEvent();
+        event.begin();
+        int numAccounts = getNumAcct();
+        OperationOutcome outcome = OperationOutcome.FAILED;
+        try {
+            printByAccountTypePage(out, 0, numAccounts);
+            out.append("*end of list*").append('\n');
+            outcome = OperationOutcome.COMPLETED;
+        } finally {
+            finishBatch(AccountMetrics.Operation.PRINT_BY_TYPE, numAccounts, outcome, metrics, start, event);
+        }
+    }
 
-        for (int i = 0; i < numAcct; i++) {
-            if (accounts[i].getType().equals("Checking")) {
-                sortedAccounts[numSortedAccounts] = accounts[i];
-                numSortedAccounts++;
+    /**
+     * This method streams one page of the accounts ordered by account type to the given output, one account per line.
+     * Accounts are kept in per-type buckets as they are opened, so the by-type ordering is a walk over the buckets
+     *  and the stored ordering of the database is left unchanged.
+     * @param out destination for the page
+     * @param offset position of the first account on the page, in by-type order
+     * @param limit maximum number of accounts on the page
+     * @return number of accounts written -- less than limit once the end of the list is reached
+     * @throws IOException if the destination cannot be written to
+     */
+    public int printByAccountTypePage(Appendable out, int offset, int limit) throws IOException {
+        Account[][] bucketSnapshot = new Account[NUM_TYPES][];
+        int[] sizeSnapshot = new int[NUM_TYPES];
+        storageLock.lock();
+        try {
+            for (int type = 0; type < NUM_TYPES; type++) {
+                bucketSnapshot[type] = buckets[type];
+                sizeSnapshot[type] = bucketSizes[type];
             }
+        } finally {
+            storageLock.unlock();
         }
-        for (int i = 0; i < numAcct; i++) {
-            if (accounts[i].getType().equals("College Checking")) {
-                sortedAccounts[numSortedAccounts] = accounts[i];
-                numSortedAccounts++;
+
+        StringBuilder line = new StringBuilder();
+        int end = pageEnd(offset, limit);
+        int written = 0;
+        int bucketStart = 0;
+        for (int type = 0; type < NUM_TYPES; type++) {
+            int from = Math.max(offset - bucketStart, 0);
+            int to = Math.min(end - bucketStart, sizeSnapshot[type]);
+            for (int i = from; i < to; i++) {
+                line.setLength(0);
+                bucketSnapshot[type][i].appendTo(line);
+                out.append(line.append('\n'));
+                written++;
             }
+            bucketStart += sizeSnapshot[type];
         }
-        for (int i = 0; i < numAcct; i++) {
-            if (accounts[i].getType().equals("Money Market")) {
-                sortedAccounts[numSortedAccounts] = accounts[i];
-                numSortedAccounts++;
-            }
+        return written;
+    }
+
+    /**
+     * This method acts as a function to print all accounts and their monthly fees/interest.
+     * @return list of all accounts with their fee and monthly interest, framed by header and "*end of list*" lines
+     */
+    public String printFeeAndInterest() {
+        StringBuilder fee = new StringBuilder();
+        try {
+            printFeeAndInterest(fee);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
         }
-        for (int i = 0; i < numAcct; i++) {
-            if (accounts[i].getType().equals("Savings")) {
-                sortedAccounts[numSortedAccounts] = accounts[i];
-                numSortedAccounts++;
-            }
+        return fee.toString();
+    }
+
+    /**
+     * This method streams all accounts and their monthly fees/interest to the given output, one account per line.
+     * @param out destination for the listing
+     * @throws IOException if the destination cannot be written to
+     */
+    public void printFeeAndInterest(Appendable out) throws IOException {
+        AccountMetrics metrics = this.metrics;
+        long start = metrics == null ? 0 : metrics.start(AccountMetrics.Operation.PRINT_FEES);
+        AccountBatchEvent event = new AccountBatchEvent();
+        event.begin();
+        int numAccounts = getNumAcct();
+        OperationOutcome outcome = OperationOutcome.FAILED;
+        try {
+            out.append('\n');
+            out.append("*list of accounts with fee and monthly interest");
+            out.append('\n');
+            printFeeAndInterestPage(out, 0, numAccounts);
+            out.append("*end of list*").append('\n');
+            outcome = OperationOutcome.COMPLETED;
+        } finally {
+            finishBatch(AccountMetrics.Operation.PRINT_FEES, numAccounts, outcome, metrics, start, event);
         }
+    }
 
-        accounts = sortedAccounts;
+    /**
+     * This method streams one page of accounts and their monthly fees/interest to the given output.
+     * Pages do not include the header or "*end of list*" lines.
+     * @param out destination for the page
+     * @param offset index of the first account on the page
+     * @param limit maximum number of accounts on the page
+     * @return number of accounts written -- less than limit once the end of the list is reached
+     * @throws IOException if the destination cannot be written to
+     */
+    public int printFeeAndInterestPage(Appendable out, int offset, int limit) throws IOException {
+        StringBuilder line = new StringBuilder();
+        int end = pageEnd(offset, limit);
+        Account[] accounts = this.accounts;
+        for (int i = offset; i < end; i++) {
+            line.setLength(0);
+            accounts[i].appendTo(line);
+            line.append("::fee $");
+            MoneyFormat.appendCents(line, accounts[i].feeCents());
+            line.append("::monthly interest $");
+            MoneyFormat.appendCents(line, accounts[i].monthlyInterestCents());
+            out.append(line.append('\n'));
+        }
+        return Math.max(end - offset, 0);
+    }
 
+    /**
+     * Helper method that returns the exclusive end index of a page of accounts, clamped to the number of accounts.
+     * @param offset index of the first account on the page
+     * @param limit maximum number of accounts on the page
+     * @return index one past the last account on the page
+     */
+    int pageEnd(int offset, int limit) {
+        if (offset < 0 || limit < 0) {
+            throw new IllegalArgumentException("offset and limit cannot be negative");
+        }
+        return (int) Math.min((long) offset + limit, getNumAcct());
     }
 
 }
-
@@ -0,0 +1,730 @@
+package bankteller.demo1;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * This class is an append-only binary journal of every change made to an account database.
+ * Opens, closes, deposits, withdrawals, and month-end updates are recorded in the order they are applied, so the
+ *  database can be rebuilt after a restart by replaying the journal into an empty database.
+ * The journal is a directory of segment files named "journal-" followed by a 16-digit segment number. Each record
+ *  is written as its length, a CRC-32 checksum, and the record itself; replay stops reading a segment at the first
+ *  incomplete or damaged record, which can only be the last one written before a crash.
+ * Records are appended to an in-memory buffer and written by a background thread, which writes everything appended
+ *  since its last write in one batch. When records must be durable before a change is reported as done, every change
+ *  waiting at the same time shares one fsync (group commit).
+ * A journal opened by recover() takes an AccountSnapshot in the background each time it moves on to a new segment,
+ *  after which the segments the snapshot covers are deleted, so the journal does not grow without bound.
+ * @author Afsana Rahman, Mini Sinha
+ */
+public class AccountJournal implements Closeable {
+
+    /**
+     * This enum lists when journal writes are forced to disk.
+     */
+    public enum FsyncPolicy {
+        /** Every change waits until it has been forced to disk; changes waiting together share one fsync. */
+        ALWAYS,
+        /** Changes return once journaled in memory; the journal is forced to disk at a fixed interval. */
+        INTERVAL,
+        /** Changes return once journaled in memory; writes are left to the operating system until the journal closes. */
+        NEVER
+    }
+
+    static final byte OPEN = 1;
+    static final byte CLOSE = 2;
+    static final byte DEPOSIT = 3;
+    static final byte WITHDRAW = 4;
+    static final byte MONTH_END = 5;
+
+    private static final String SEGMENT_PREFIX = "journal-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final int HEADER_BYTES = 8;
+    private static final int BUFFER_BYTES = 1 << 20;
+    private static final long DEFAULT_SEGMENT_BYTES = 64L << 20;
+    private static final long DEFAULT_INTERVAL_MILLIS = 10;
+
+    private final Path directory;
+    private final FsyncPolicy policy;
+    private final long intervalMillis;
+    private final long segmentBytes;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition work = lock.newCondition();
+    private final Condition written = lock.newCondition();
+    private ByteBuffer active = ByteBuffer.allocate(BUFFER_BYTES);
+    private ByteBuffer spare = ByteBuffer.allocate(BUFFER_BYTES);
+    private final CRC32 crc = new CRC32();
+    private long appended;
+    private long durable;
+    private boolean flushRequested;
+    private boolean rollRequested;
+    private boolean closed;
+    private IOException failure;
+    private Throwable snapshotFailure;
+
+    private FileChannel segment;
+    private long segmentNumber;
+    private long segmentSize;
+    private final Thread flusher;
+
+    private volatile AccountDatabase database;
+    private final AtomicBoolean snapshotRunning = new AtomicBoolean();
+
+    /**
+     * Constructor that opens a journal for appending, starting a new segment after any existing ones.
+     * Existing segments should be replayed into the database before the journal is attached to it.
+     * @param directory directory holding the journal segments, created if it does not exist
+     * @param policy when journal writes are forced to disk
+     * @throws IOException if the directory or new segment cannot be created
+     */
+    public AccountJournal(Path directory, FsyncPolicy policy) throws IOException {
+        this(directory, policy, DEFAULT_INTERVAL_MILLIS, DEFAULT_SEGMENT_BYTES);
+    }
+
+    /**
+     * Constructor that opens a journal for appending, starting a new segment after any existing ones.
+     * @param directory directory holding the journal segments, created if it does not exist
+     * @param policy when journal writes are forced to disk
+     * @param intervalMillis longest time between background writes, in milliseconds
+     * @param segmentBytes size after which the journal moves on to a new segment file
+     * @throws IOException if the directory or new segment cannot be created
+     */
+    public AccountJournal(Path directory, FsyncPolicy policy, long intervalMillis, long segmentBytes)
+            throws IOException {
+        this.directory = directory;
+        this.policy = policy;
+        this.intervalMillis = Math.max(intervalMillis, 1);
+        this.segmentBytes = segmentBytes;
+        Files.createDirectories(directory);
+        List<Path> existing = segments(directory);
+        this.segmentNumber = existing.isEmpty() ? 0 : segmentNumber(existing.get(existing.size() - 1));
+        openNextSegment();
+        this.flusher = new Thread(this::flushLoop, "bankteller-journal");
+        this.flusher.setDaemon(true);
+        this.flusher.start();
+    }
+
+    /**
+     * This method rebuilds a database from the newest snapshot and the journal in the given directory, then attaches
+     *  a new journal to it.
+     * Every later change to the database is journaled in the same directory, and a snapshot of the database is taken
+     *  in the background whenever the journal moves on to a new segment.
+     * @param directory directory holding the journal segments
+     * @param database empty database to rebuild
+     * @param policy when journal writes are forced to disk
+     * @return journal attached to the database
+     * @throws IOException if the journal cannot be read or opened
+     */
+    public static AccountJournal recover(Path directory, AccountDatabase database, FsyncPolicy policy)
+            throws IOException {
+        replay(directory, database);
+        AccountJournal journal = new AccountJournal(directory, policy);
+        database.setJournal(journal);
+        journal.database = database;
+        return journal;
+    }
+
+    /**
+     * This method rebuilds the database from the journal set up with system properties, if there is one.
+     * "bankteller.journal.dir" names the journal directory; without it nothing is journaled and null is returned.
+     * "bankteller.journal.fsync" is always, interval (the default), or never.
+     * @param database empty database to rebuild
+     * @return journal attached to the database -- null if journaling is not set up
+     * @throws IOException if the journal cannot be read or opened
+     */
+    public static AccountJournal recoverFromSystemProperties(AccountDatabase database) throws IOException {
+        String directory = System.getProperty("bankteller.journal.dir");
+        if (directory == null) {
+            return null;
+        }
+        String policy = System.getProperty("bankteller.journal.fsync", FsyncPolicy.INTERVAL.name());
+        return recover(Path.of(directory), database, FsyncPolicy.valueOf(policy.toUpperCase()));
+    }
+
+    /**
+     * This method loads the newest snapshot in the journal directory into the given database, then applies every
+     *  change journaled after it, oldest first.
+     * The database must be empty and must not have a journal attached while it is replayed into.
+     * @param directory directory holding the journal segments -- nothing is replayed if it does not exist
+     * @param database database the changes are applied to
+     * @return number of changes replayed from the journal, not counting accounts loaded from the snapshot
+     * @throws IOException if the snapshot or a segment cannot be read
+     */
+    public static int replay(Path directory, AccountDatabase database) throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return 0;
+        }
+        long firstSegment = AccountSnapshot.loadLatest(directory, database);
+        int replayed = 0;
+        for (Path path : segments(directory)) {
+            if (segmentNumber(path) < firstSegment) {
+                continue;
+            }
+            try (InputStream in = Files.newInputStream(path)) {
+                replayed += replaySegment(in, database);
+            }
+        }
+        return replayed;
+    }
+
+    /**
+     * Helper method that applies the records of one segment to a database, stopping at the first incomplete or
+     *  damaged record.
+     * @param in contents of the segment
+     * @param database database the changes are applied to
+     * @return number of changes replayed
+     * @throws IOException if the segment cannot be read
+     */
+    static int replaySegment(InputStream in, AccountDatabase database) throws IOException {
+        DataInputStream data = new DataInputStream(new BufferedInputStream(in, 1 << 16));
+        CRC32 checksum = new CRC32();
+        byte[] record = new byte[256];
+        int replayed = 0;
+        while (true) {
+            int length;
+            int expected;
+            try {
+                length = data.readInt();
+                expected = data.readInt();
+                if (length <= 0 || length > BUFFER_BYTES) {
+                    return replayed;
+                }
+                if (record.length < length) {
+                    record = new byte[length];
+                }
+                data.readFully(record, 0, length);
+            } catch (EOFException e) {
+                return replayed;
+            }
+            checksum.reset();
+            checksum.update(record, 0, length);
+            if ((int) checksum.getValue() != expected) {
+                return replayed;
+            }
+            apply(ByteBuffer.wrap(record, 0, length), database);
+            replayed++;
+        }
+    }
+
+    /**
+     * Helper method that applies one journal record to a database.
+     * @param record contents of the record
+     * @param database database the change is applied to
+     */
+    static void apply(ByteBuffer record, AccountDatabase database) {
+        byte operation = record.get();
+        if (operation == MONTH_END) {
+            database.updateBalances();
+            return;
+        }
+        int type = record.get();
+        long cents = record.getLong();
+        int code = record.get();
+        Profile holder = new Profile(readString(record), readString(record), readString(record));
+        Account account = newAccount(type, holder, code);
+        account.depositCents(cents);
+        switch (operation) {
+            case OPEN:
+                database.open(account);
+                break;
+            case CLOSE:
+                database.close(account);
+                break;
+            case DEPOSIT:
+                database.deposit(account);
+                break;
+            case WITHDRAW:
+                database.withdraw(account);
+                break;
+            default:
+                throw new IllegalStateException("Unknown journal record " + operation);
+        }
+    }
+
+    /**
+     * Helper method that creates the account a journal record refers to, with a $0 balance.
+     * @param type account type index
+     * @param holder account holder
+     * @param code campus code for College Checking or loyalty for Savings accounts
+     * @return account of the given type
+     */
+    private static Account newAccount(int type, Profile holder, int code) {
+        switch (type) {
+            case AccountDatabase.CHECKING:
+                return new Checking(holder, 0);
+            case AccountDatabase.COLLEGE_CHECKING:
+                return new CollegeChecking(holder, 0, code);
+            case AccountDatabase.MONEY_MARKET:
+                return new MoneyMarket(holder, 0);
+            default:
+                return new Savings(holder, 0, code);
+        }
+    }
+
+    /**
+     * Method that records an account being opened or reopened.
+     * @param account account that was opened, holding its initial deposit
+     * @return sequence number of the record, for awaitDurable()
+     */
+    public long logOpen(Account account) {
+        int code = 0;
+        if (account instanceof CollegeChecking) {
+            code = ((CollegeChecking) account).getCampus().getCampusCode();
+        } else if (account instanceof Savings && !(account instanceof MoneyMarket)) {
+            code = ((Savings) account).getLoyal();
+        }
+        return append(OPEN, account, account.getBalanceCents(), code);
+    }
+
+    /**
+     * Method that records an account being closed.
+     * @param account account that was closed
+     * @return sequence number of the record, for awaitDurable()
+     */
+    public long logClose(Account account) {
+        return append(CLOSE, account, 0, 0);
+    }
+
+    /**
+     * Method that records a deposit.
+     * @param account account holding the amount deposited as its balance
+     * @return sequence number of the record, for awaitDurable()
+     */
+    public long logDeposit(Account account) {
+        return append(DEPOSIT, account, account.getBalanceCents(), 0);
+    }
+
+    /**
+     * Method that records a successful withdrawal.
+     * @param account account holding the amount withdrawn as its balance
+     * @return sequence number of the record, for awaitDurable()
+     */
+    public long logWithdraw(Account account) {
+        return append(WITHDRAW, account, account.getBalanceCents(), 0);
+    }
+
+    /**
+     * Method that records a month-end update of every account.
+     * @return sequence number of the record, for awaitDurable()
+     */
+    public long logMonthEnd() {
+        lock.lock();
+        try {
+            reserve(1);
+            int start = beginRecord();
+            active.put(MONTH_END);
+            return endRecord(start);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Method that waits until a record has been written and, under the ALWAYS policy, forced to disk.
+     * Under the other policies it returns at once. Callers should not hold database locks while waiting, so that
+     *  changes made in the meantime can share the same write.
+     * @param sequence sequence number returned when the record was appended
+     * @throws UncheckedIOException if the journal could not be written
+     */
+    public void awaitDurable(long sequence) {
+        if (policy != FsyncPolicy.ALWAYS) {
+            return;
+        }
+        lock.lock();
+        try {
+            while (durable < sequence) {
+                checkFailure();
+                awaitWritten();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Method that writes out every record appended so far and moves the journal on to a new segment, so that a
+     *  snapshot can be taken at a segment boundary.
+     * The caller holds every database lock, so no record is appended while it waits for the write.
+     * @return number of the segment that the next record will be written to
+     * @throws UncheckedIOException if the journal could not be written
+     */
+    long rollSegment() {
+        lock.lock();
+        try {
+            checkFailure();
+            long target = appended;
+            rollRequested = true;
+            flushRequested = true;
+            work.signal();
+            while (rollRequested || durable < target) {
+                checkFailure();
+                awaitWritten();
+            }
+            return segmentNumber;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Helper method that appends an account record to the buffer.
+     * @param operation kind of change
+     * @param account account that was changed
+     * @param cents amount of the change in cents
+     * @param code campus code or loyalty of an opened account
+     * @return sequence number of the record
+     */
+    private long append(byte operation, Account account, long cents, int code) {
+        Profile holder = account.getHolder();
+        byte[] fname = holder.getFname().getBytes(StandardCharsets.UTF_8);
+        byte[] lname = holder.getLname().getBytes(StandardCharsets.UTF_8);
+        byte[] dob = holder.getDob().toString().getBytes(StandardCharsets.UTF_8);
+        int size = 1 + 1 + Long.BYTES + 1 + 3 * Short.BYTES + fname.length + lname.length + dob.length;
+        lock.lock();
+        try {
+            reserve(size);
+            int start = beginRecord();
+            active.put(operation);
+            active.put((byte) account.getAccountType().ordinal());
+            active.putLong(cents);
+            active.put((byte) code);
+            putString(fname);
+            putString(lname);
+            putString(dob);
+            return endRecord(start);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Helper method that waits until the buffer has room for a record, asking the background thread to write it out.
+     * Must be called while holding the journal lock.
+     * @param size size of the record, not counting its length and checksum
+     */
+    private void reserve(int size) {
+        if (size + HEADER_BYTES > BUFFER_BYTES) {
+            throw new IllegalArgumentException("Journal record too large");
+        }
+        checkFailure();
+        while (active.remaining() < size + HEADER_BYTES) {
+            flushRequested = true;
+            work.signal();
+            awaitWritten();
+            checkFailure();
+        }
+    }
+
+    /**
+     * Helper method that waits until the background thread finishes a write.
+     * Must be called while holding the journal lock.
+     */
+    private void awaitWritten() {
+        try {
+            written.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new UncheckedIOException(new InterruptedIOException("Interrupted waiting for journal"));
+        }
+    }
+
+    /**
+     * Helper method that leaves room for the length and checksum at the start of a new record.
+     * @return buffer position of the record
+     */
+    private int beginRecord() {
+        int start = active.position();
+        active.position(start + HEADER_BYTES);
+        return start;
+    }
+
+    /**
+     * Helper method that fills in the length and checksum of the record that was just written to the buffer.
+     * Under the ALWAYS policy the background thread is woken so the record is written without waiting.
+     * @param start buffer position of the record
+     * @return sequence number of the record
+     */
+    private long endRecord(int start) {
+        int end = active.position();
+        int length = end - start - HEADER_BYTES;
+        crc.reset();
+        crc.update(active.array(), start + HEADER_BYTES, length);
+        active.putInt(start, length);
+        active.putInt(start + Integer.BYTES, (int) crc.getValue());
+        if (policy == FsyncPolicy.ALWAYS) {
+            work.signal();
+        }
+        return ++appended;
+    }
+
+    /**
+     * Helper method that writes a string as its length followed by its bytes.
+     * @param bytes UTF-8 bytes of the string
+     */
+    private void putString(byte[] bytes) {
+        active.putShort((short) bytes.length);
+        active.put(bytes);
+    }
+
+    /**
+     * Helper method that reads a string written by putString().
+     * @param record record being read
+     * @return string read
+     */
+    private static String readString(ByteBuffer record) {
+        int length = record.getShort() & 0xFFFF;
+        String string = new String(record.array(), record.arrayOffset() + record.position(), length,
+                StandardCharsets.UTF_8);
+        record.position(record.position() + length);
+        return string;
+    }
+
+    /**
+     * Helper method that throws the error that stopped the background thread, if there was one.
+     * Must be called while holding the journal lock.
+     */
+    private void checkFailure() {
+        if (failure != null) {
+            throw new UncheckedIOException("Account journal could not be written", failure);
+        } else if (closed) {
+            throw new IllegalStateException("Account journal is closed");
+        }
+    }
+
+    /**
+     * This method runs on the background thread, writing out everything appended since the last write.
+     * Writes happen when a change is waiting for them, when the buffer fills, or after the policy's interval.
+     */
+    private void flushLoop() {
+        while (true) {
+            ByteBuffer batch;
+            long target;
+            boolean last;
+            boolean roll;
+            boolean full;
+            lock.lock();
+            try {
+                while (!closed && !flushRequested && !(policy == FsyncPolicy.ALWAYS && appended > durable)) {
+                    if (policy == FsyncPolicy.ALWAYS) {
+                        work.await();
+                    } else if (!work.await(intervalMillis, TimeUnit.MILLISECONDS) && active.position() > 0) {
+                        break;
+                    }
+                }
+            } catch (InterruptedException e) {
+                closed = true;
+            } finally {
+                flushRequested = false;
+                roll = rollRequested;
+                last = closed;
+                batch = active;
+                active = spare;
+                spare = batch;
+                target = appended;
+                lock.unlock();
+            }
+            try {
+                batch.flip();
+                full = write(batch, last, roll);
+            } catch (IOException e) {
+                lock.lock();
+                try {
+                    failure = e;
+                    written.signalAll();
+                } finally {
+                    lock.unlock();
+                }
+                return;
+            } finally {
+                batch.clear();
+            }
+            lock.lock();
+            try {
+                durable = target;
+                if (roll) {
+                    rollRequested = false;
+                }
+                written.signalAll();
+            } finally {
+                lock.unlock();
+            }
+            if (last) {
+                return;
+            }
+            if (full) {
+                snapshotInBackground();
+            }
+        }
+    }
+
+    /**
+     * Helper method that takes a snapshot of the journaled database on its own thread after the journal moves on to
+     *  a full segment's worth of changes, unless one is already being taken.
+     * The snapshot waits for the background writer, so it is never taken on the writer's thread. Its outcome is kept
+     *  for getSnapshotFailure() and close().
+     */
+    private void snapshotInBackground() {
+        AccountDatabase database = this.database;
+        if (database == null || !snapshotRunning.compareAndSet(false, true)) {
+            return;
+        }
+        AccountSnapshot.takeInBackground(database, directory).whenComplete((path, error) -> {
+            lock.lock();
+            try {
+                snapshotFailure = error;
+            } finally {
+                lock.unlock();
+            }
+            snapshotRunning.set(false);
+        });
+    }
+
+    /**
+     * Method that returns why the last snapshot taken automatically when a segment filled up failed.
+     * A failed snapshot does not stop the journal, but its segments are kept, so recovery replays more of them.
+     * The next automatic snapshot that succeeds clears the failure.
+     * @return error of the last automatic snapshot -- null if it succeeded or none has been taken
+     */
+    public Throwable getSnapshotFailure() {
+        lock.lock();
+        try {
+            return snapshotFailure;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Helper method that writes a batch of records to the current segment and forces it to disk as the policy
+     *  requires, then moves on to a new segment if the current one is full or a roll was requested.
+     * @param batch records to be written
+     * @param last true if the journal is closing, in which case the segment is always forced
+     * @param rollRequested true if rollSegment() asked for a new segment
+     * @return true if the journal moved on to a new segment because the current one was full
+     * @throws IOException if the segment cannot be written
+     */
+    private boolean write(ByteBuffer batch, boolean last, boolean rollRequested) throws IOException {
+        int size = batch.remaining();
+        while (batch.hasRemaining()) {
+            segment.write(batch);
+        }
+        segmentSize += size;
+        if (policy != FsyncPolicy.NEVER || last) {
+            segment.force(false);
+        }
+        if (last) {
+            return false;
+        }
+        boolean full = segmentSize >= segmentBytes;
+        if (full || (rollRequested && segmentSize > 0)) {
+            segment.force(false);
+            segment.close();
+            openNextSegment();
+        }
+        return full && !rollRequested;
+    }
+
+    /**
+     * Helper method that creates the next segment file and makes it the one being written.
+     * @throws IOException if the segment cannot be created
+     */
+    private void openNextSegment() throws IOException {
+        segmentNumber++;
+        Path path = directory.resolve(String.format("%s%016d%s", SEGMENT_PREFIX, segmentNumber, SEGMENT_SUFFIX));
+        segment = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        segmentSize = 0;
+    }
+
+    /**
+     * Helper method that lists the journal segments in a directory, oldest first.
+     * @param directory directory holding the journal segments
+     * @return paths of the segments in the order they were written
+     * @throws IOException if the directory cannot be listed
+     */
+    static List<Path> segments(Path directory) throws IOException {
+        List<Path> segments = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            files.filter(path -> {
+                String name = path.getFileName().toString();
+                return name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX);
+            }).forEach(segments::add);
+        }
+        Collections.sort(segments);
+        return segments;
+    }
+
+    /**
+     * Helper method that returns the number of a segment from its file name.
+     * @param segment path of the segment
+     * @return segment number
+     */
+    static long segmentNumber(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    /**
+     * Method that returns the directory holding the journal segments.
+     * @return journal directory
+     */
+    public Path getDirectory() {
+        return directory;
+    }
+
+    /**
+     * This method writes out and forces every record appended so far, then closes the journal.
+     * @throws IOException if the journal could not be written, or the last automatic snapshot failed
+     */
+    @Override
+    public void close() throws IOException {
+        lock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            work.signal();
+        } finally {
+            lock.unlock();
+        }
+        try {
+            flusher.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        segment.close();
+        lock.lock();
+        try {
+            if (failure != null) {
+                throw failure;
+            } else if (snapshotFailure != null) {
+                throw new IOException("Could not take a snapshot of the accounts: " + snapshotFailure.getMessage(),
+                        snapshotFailure);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+}
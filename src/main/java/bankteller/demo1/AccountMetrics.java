@@ -0,0 +1,512 @@
+package bankteller.demo1;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * This class counts the operations of an AccountDatabase by outcome and records how long they take.
+ * Counts are exact and striped by thread: each thread counts in its own Recorder with plain writes, so counting takes
+ *  no atomic instruction and threads never wait on one another. The stripes are added together when counts are read.
+ * A Recorder counts how many of each operation ended and, separately, only the outcomes other than the usual one
+ *  (a deposit made, a withdrawal made, ...), which are the remainder. So a deposit or withdrawal costs one increment.
+ * Latencies go into one LatencyHistogram per operation. Timing an operation costs more than the operations on a
+ *  single account, so only a sample of opens, closes, deposits, and withdrawals are timed -- one in 1024 of each
+ *  thread's operations of each kind by default, picked with the same count -- while listings and month-end updates
+ *  are always timed.
+ * Metrics are attached with AccountDatabase.setMetrics(), or with fromSystemProperties(), and are read through the
+ *  "bankteller.demo1:type=AccountMetrics" MBean or as plain text with dump().
+ * @author Afsana Rahman, Mini Sinha
+ */
+public class AccountMetrics implements AccountMetricsMBean {
+
+    /**
+     * Name the metrics are registered under with the platform MBean server.
+     */
+    public static final String OBJECT_NAME = "bankteller.demo1:type=AccountMetrics";
+
+    /**
+     * Number of operations on single accounts per operation timed, by default.
+     */
+    public static final int DEFAULT_SAMPLE_EVERY = 1024;
+
+    /**
+     * Value returned by start() for an operation that is counted but not timed.
+     */
+    static final long NOT_TIMED = Long.MIN_VALUE;
+
+    private static final int NUM_OUTCOMES = OperationOutcome.values().length;
+    private static final double NANOS_PER_MICRO = 1000.0;
+    private static final double[] DUMP_PERCENTILES = {50, 90, 99, 99.9};
+
+    /**
+     * This enum lists the AccountDatabase operations that are measured.
+     */
+    public enum Operation {
+
+        OPEN("open", true, OperationOutcome.OPENED),
+        CLOSE("close", true, OperationOutcome.CLOSED),
+        DEPOSIT("deposit", true, OperationOutcome.DEPOSITED),
+        WITHDRAW("withdraw", true, OperationOutcome.WITHDRAWN),
+        PRINT("print", false, OperationOutcome.COMPLETED),
+        PRINT_BY_TYPE("print-by-type", false, OperationOutcome.COMPLETED),
+        PRINT_FEES("print-fees", false, OperationOutcome.COMPLETED),
+        UPDATE_BALANCES("update-balances", false, OperationOutcome.COMPLETED);
+
+        private final String label;
+        private final boolean sampled;
+        private final OperationOutcome usual;
+
+        /**
+         * Constructor that creates an operation.
+         * @param label name of the operation as shown in metrics
+         * @param sampled true if only a sample of the operation is timed
+         * @param usual outcome of the operation that is not counted on its own, but as the operations that ended
+         *  with no other outcome
+         */
+        Operation(String label, boolean sampled, OperationOutcome usual) {
+            this.label = label;
+            this.sampled = sampled;
+            this.usual = usual;
+        }
+
+        /**
+         * Method that returns the name of the operation as shown in metrics.
+         * @return label, such as "update-balances"
+         */
+        public String label() {
+            return label;
+        }
+    }
+
+    private static final VarHandle COUNT = MethodHandles.arrayElementVarHandle(long[].class);
+    private static final int CACHED_RECORDERS = 64;
+
+    private final int sampleMask;
+    // each thread's recorder only refers to the histograms, so the thread local goes away along with the metrics
+    private final ThreadLocal<Recorder> recorders = ThreadLocal.withInitial(this::addRecorder);
+    // recorders by thread id, checked before the thread local as it takes fewer loads to reach
+    private final Recorder[] cachedRecorders = new Recorder[CACHED_RECORDERS];
+    private final LatencyHistogram[] latencies;
+    private final LongAdder monthEndAccounts = new LongAdder();
+
+    // recorders of threads that may still count, and the counts of threads that have ended; guarded by liveRecorders
+    private final List<Recorder> liveRecorders = new ArrayList<>();
+    private final long[] retiredCounts = new long[Operation.values().length * NUM_OUTCOMES];
+
+    /**
+     * Constructor that creates metrics that time one in 1024 operations on single accounts.
+     */
+    public AccountMetrics() {
+        this(DEFAULT_SAMPLE_EVERY);
+    }
+
+    /**
+     * Constructor that creates metrics that time one in the given number of operations on single accounts.
+     * @param sampleEvery operations per operation timed, rounded down to a power of two -- 1 to time every one
+     */
+    public AccountMetrics(int sampleEvery) {
+        this.sampleMask = Integer.highestOneBit(Math.max(sampleEvery, 1)) - 1;
+        Operation[] operations = Operation.values();
+        this.latencies = new LatencyHistogram[operations.length];
+        for (int i = 0; i < latencies.length; i++) {
+            latencies[i] = new LatencyHistogram();
+        }
+    }
+
+    /**
+     * This method attaches metrics to the database when they are turned on with system properties, and registers
+     *  them with the platform MBean server.
+     * "bankteller.metrics" set to true turns metrics on; "bankteller.metrics.sample" is the number of operations on
+     *  single accounts per operation timed, 1024 by default; set it lower, down to 1, where operations are few, such
+     *  as in the Bank Teller window.
+     * @param database database to measure
+     * @return metrics attached to the database -- null if metrics are not turned on
+     */
+    public static AccountMetrics fromSystemProperties(AccountDatabase database) {
+        if (!Boolean.getBoolean("bankteller.metrics")) {
+            return null;
+        }
+        AccountMetrics metrics = new AccountMetrics(Integer.getInteger("bankteller.metrics.sample",
+                DEFAULT_SAMPLE_EVERY));
+        database.setMetrics(metrics);
+        metrics.register();
+        return metrics;
+    }
+
+    /**
+     * This method registers the metrics with the platform MBean server, replacing metrics registered before.
+     * @throws IllegalStateException if the MBean server rejects the metrics
+     */
+    public void register() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            if (server.isRegistered(name)) {
+                server.unregisterMBean(name);
+            }
+            server.registerMBean(this, name);
+        } catch (JMException e) {
+            throw new IllegalStateException("Could not register metrics: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Method that returns the recorder the calling thread counts and times its operations in.
+     * @return recorder of the calling thread
+     */
+    Recorder recorder() {
+        Thread thread = Thread.currentThread();
+        Recorder recorder = cachedRecorders[(int) thread.getId() & (CACHED_RECORDERS - 1)];
+        if (recorder != null && recorder.owner == thread) {
+            return recorder;
+        }
+        recorder = recorders.get();
+        cachedRecorders[(int) thread.getId() & (CACHED_RECORDERS - 1)] = recorder;
+        return recorder;
+    }
+
+    /**
+     * Method that starts measuring an operation on the calling thread.
+     * @param operation operation being started
+     * @return start time in nanoseconds -- NOT_TIMED if this operation is only counted
+     */
+    long start(Operation operation) {
+        return recorder().start(operation);
+    }
+
+    /**
+     * Method that finishes measuring an operation on the calling thread, counting its outcome and recording its
+     *  latency if it was timed.
+     * @param operation operation that ended
+     * @param outcome how the operation ended
+     * @param start value returned by start() for the operation
+     */
+    void record(Operation operation, OperationOutcome outcome, long start) {
+        recorder().record(operation, outcome, start);
+    }
+
+    /**
+     * Helper method that creates the recorder of a thread the first time it is measured. Recorders of threads that
+     *  have ended are folded into the retired counts first, so only the recorders of live threads are kept.
+     * @return new recorder of the calling thread
+     */
+    private Recorder addRecorder() {
+        Recorder recorder = new Recorder(Thread.currentThread(), sampleMask, latencies);
+        synchronized (liveRecorders) {
+            for (Iterator<Recorder> it = liveRecorders.iterator(); it.hasNext();) {
+                Recorder live = it.next();
+                if (!live.isOwnerAlive()) {
+                    for (int i = 0; i < retiredCounts.length; i++) {
+                        retiredCounts[i] += live.getCount(i);
+                    }
+                    it.remove();
+                }
+            }
+            liveRecorders.add(recorder);
+        }
+        return recorder;
+    }
+
+    /**
+     * Method that counts the accounts updated by a month-end update.
+     * @param numAccounts number of accounts updated
+     */
+    void recordMonthEnd(int numAccounts) {
+        monthEndAccounts.add(numAccounts);
+    }
+
+    /**
+     * Method that returns the number of times an operation ended with an outcome.
+     * @param operation operation
+     * @param outcome how the operation ended
+     * @return number of times
+     */
+    public long getCount(Operation operation, OperationOutcome outcome) {
+        int index = operation.ordinal() * NUM_OUTCOMES + outcome.ordinal();
+        synchronized (liveRecorders) {
+            long count = retiredCounts[index];
+            for (Recorder recorder : liveRecorders) {
+                count += recorder.getCount(index);
+            }
+            return count;
+        }
+    }
+
+    /**
+     * Method that returns the number of times an operation ran, whatever its outcome.
+     * @param operation operation
+     * @return number of times
+     */
+    public long getCount(Operation operation) {
+        long count = 0;
+        for (OperationOutcome outcome : OperationOutcome.values()) {
+            count += getCount(operation, outcome);
+        }
+        return count;
+    }
+
+    /**
+     * Method that returns the latencies recorded for an operation.
+     * @param operation operation
+     * @return latency histogram
+     */
+    public LatencyHistogram getLatencies(Operation operation) {
+        return latencies[operation.ordinal()];
+    }
+
+    /**
+     * Method that returns the number of new accounts opened.
+     * @return accounts opened
+     */
+    @Override
+    public long getOpened() {
+        return getCount(Operation.OPEN, OperationOutcome.OPENED);
+    }
+
+    /**
+     * Method that returns the number of closed accounts opened again.
+     * @return accounts reopened
+     */
+    @Override
+    public long getReopened() {
+        return getCount(Operation.OPEN, OperationOutcome.REOPENED);
+    }
+
+    /**
+     * Method that returns the number of openings rejected, for any reason.
+     * @return openings rejected
+     */
+    @Override
+    public long getOpenRejected() {
+        return getCount(Operation.OPEN) - getOpened() - getReopened();
+    }
+
+    /**
+     * Method that returns the number of accounts closed.
+     * @return accounts closed
+     */
+    @Override
+    public long getClosed() {
+        return getCount(Operation.CLOSE, OperationOutcome.CLOSED);
+    }
+
+    /**
+     * Method that returns the number of deposits made.
+     * @return deposits made
+     */
+    @Override
+    public long getDeposits() {
+        return getCount(Operation.DEPOSIT, OperationOutcome.DEPOSITED);
+    }
+
+    /**
+     * Method that returns the number of withdrawals made.
+     * @return withdrawals made
+     */
+    @Override
+    public long getWithdrawals() {
+        return getCount(Operation.WITHDRAW, OperationOutcome.WITHDRAWN);
+    }
+
+    /**
+     * Method that returns the number of withdrawals rejected because the balance was too low.
+     * @return withdrawals rejected for insufficient funds
+     */
+    @Override
+    public long getInsufficientFunds() {
+        return getCount(Operation.WITHDRAW, OperationOutcome.INSUFFICIENT_FUNDS);
+    }
+
+    /**
+     * Method that returns the number of month-end updates run.
+     * @return month-end updates
+     */
+    @Override
+    public long getMonthEnds() {
+        return getCount(Operation.UPDATE_BALANCES);
+    }
+
+    /**
+     * Method that returns the number of accounts updated by all month-end updates together.
+     * @return accounts updated at month end
+     */
+    @Override
+    public long getMonthEndAccounts() {
+        return monthEndAccounts.sum();
+    }
+
+    /**
+     * Method that returns the number of times an operation ended with an outcome.
+     * @param operation operation label, such as "withdraw"
+     * @param outcome outcome label, such as "insufficient-funds"
+     * @return number of times -- 0 if the operation or outcome is unknown
+     */
+    @Override
+    public long getCount(String operation, String outcome) {
+        Operation op = operationOf(operation);
+        for (OperationOutcome result : OperationOutcome.values()) {
+            if (op != null && result.label().equals(outcome)) {
+                return getCount(op, result);
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Method that returns a percentile of the latencies recorded for an operation.
+     * @param operation operation label, such as "deposit"
+     * @param percentile percentage from 0 to 100, such as 99.9
+     * @return latency in nanoseconds -- 0 if the operation is unknown or has no latencies recorded
+     */
+    @Override
+    public long getLatencyNanos(String operation, double percentile) {
+        Operation op = operationOf(operation);
+        return op == null ? 0 : getLatencies(op).getPercentileNanos(percentile);
+    }
+
+    /**
+     * Method that returns every count and latency summary as plain text, one operation per line followed by the
+     *  count of each outcome that occurred. Latencies are in microseconds.
+     * @return metrics dump
+     */
+    @Override
+    public String dump() {
+        StringBuilder dump = new StringBuilder();
+        dump.append(String.format("%-20s %10s %10s %10s %10s %10s %10s %10s%n",
+                "operation", "count", "timed", "p50(us)", "p90(us)", "p99(us)", "p99.9(us)", "max(us)"));
+        for (Operation operation : Operation.values()) {
+            LatencyHistogram histogram = getLatencies(operation);
+            dump.append(String.format("%-20s %10d %10d", operation.label, getCount(operation), histogram.getCount()));
+            for (double percentile : DUMP_PERCENTILES) {
+                dump.append(String.format(" %10.1f", histogram.getPercentileNanos(percentile) / NANOS_PER_MICRO));
+            }
+            dump.append(String.format(" %10.1f%n", histogram.getMaxNanos() / NANOS_PER_MICRO));
+            for (OperationOutcome outcome : OperationOutcome.values()) {
+                long count = getCount(operation, outcome);
+                if (count != 0) {
+                    dump.append(String.format("  %-18s %10d%n", outcome.label(), count));
+                }
+            }
+        }
+        dump.append(String.format("%-20s %10d%n", "month-end-accounts", getMonthEndAccounts()));
+        return dump.toString();
+    }
+
+    /**
+     * This class counts and times the operations of one thread. Only its thread writes to it, the number of
+     *  operations ended with plain writes as it is the one count every operation changes, and other threads can read
+     *  it at any time, seeing counts that may be a few operations behind.
+     * It keeps, for each operation, the number that ended, and separately the number that ended with each outcome
+     *  other than the usual one. The number of operations ended also picks which operations on single accounts are
+     *  timed, so the usual deposit or withdrawal costs the one increment.
+     */
+    static final class Recorder {
+
+        private final Thread owner;
+        private final int sampleMask;
+        private final LatencyHistogram[] latencies;
+        private final long[] ended = new long[Operation.values().length];
+        private final long[] unusual = new long[Operation.values().length * NUM_OUTCOMES];
+
+        /**
+         * Constructor that creates the recorder of a thread.
+         * @param owner thread that counts in the recorder
+         * @param sampleMask operations on single accounts per operation timed, less one -- a power of two less one
+         * @param latencies latency histograms of the metrics, one per operation
+         */
+        Recorder(Thread owner, int sampleMask, LatencyHistogram[] latencies) {
+            this.owner = owner;
+            this.sampleMask = sampleMask;
+            this.latencies = latencies;
+        }
+
+        /**
+         * Method that starts measuring an operation, timing an operation on a single account only if it is the next
+         *  one of its kind to be sampled.
+         * @param operation operation being started
+         * @return start time in nanoseconds -- NOT_TIMED if this operation is only counted
+         */
+        long start(Operation operation) {
+            if (operation.sampled && (ended[operation.ordinal()] & sampleMask) != sampleMask) {
+                return NOT_TIMED;
+            }
+            return System.nanoTime();
+        }
+
+        /**
+         * Method that counts the outcome of an operation that was not timed.
+         * @param operation operation that ended
+         * @param outcome how the operation ended
+         */
+        void count(Operation operation, OperationOutcome outcome) {
+            // counted as ended before the unusual outcome, whose release makes a reader see both
+            ended[operation.ordinal()]++;
+            if (outcome != operation.usual) {
+                int index = operation.ordinal() * NUM_OUTCOMES + outcome.ordinal();
+                COUNT.setRelease(unusual, index, unusual[index] + 1);
+            }
+        }
+
+        /**
+         * Method that finishes measuring an operation, counting its outcome and recording its latency if it was
+         *  timed.
+         * @param operation operation that ended
+         * @param outcome how the operation ended
+         * @param start value returned by start() for the operation
+         */
+        void record(Operation operation, OperationOutcome outcome, long start) {
+            if (start != NOT_TIMED) {
+                latencies[operation.ordinal()].record(System.nanoTime() - start);
+            }
+            count(operation, outcome);
+        }
+
+        /**
+         * Method that returns one count of the recorder, from any thread. While the thread runs, the count may be a
+         *  few operations behind.
+         * @param index position of the operation and outcome in the counts
+         * @return number of times
+         */
+        long getCount(int index) {
+            Operation operation = Operation.values()[index / NUM_OUTCOMES];
+            if (index % NUM_OUTCOMES != operation.usual.ordinal()) {
+                return (long) COUNT.getAcquire(unusual, index);
+            }
+            long others = 0;
+            for (int i = operation.ordinal() * NUM_OUTCOMES; i < (operation.ordinal() + 1) * NUM_OUTCOMES; i++) {
+                others += (long) COUNT.getAcquire(unusual, i);
+            }
+            return (long) COUNT.getOpaque(ended, operation.ordinal()) - others;
+        }
+
+        /**
+         * Method that checks if the thread counting in the recorder may still count.
+         * @return false once the thread has ended, true otherwise
+         */
+        boolean isOwnerAlive() {
+            return owner.isAlive();
+        }
+    }
+
+    /**
+     * Helper method that finds an operation by its label.
+     * @param label label of the operation, such as "deposit"
+     * @return operation -- null if no operation has the label
+     */
+    private static Operation operationOf(String label) {
+        for (Operation operation : Operation.values()) {
+            if (operation.label.equals(label)) {
+                return operation;
+            }
+        }
+        return null;
+    }
+}
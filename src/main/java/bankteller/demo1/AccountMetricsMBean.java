@@ -0,0 +1,85 @@
+package bankteller.demo1;
+
+/**
+ * This interface is the management view of AccountMetrics, registered with the platform MBean server as
+ *  "bankteller.demo1:type=AccountMetrics" so JConsole, VisualVM, or any JMX client can read it.
+ * @author Afsana Rahman, Mini Sinha
+ */
+public interface AccountMetricsMBean {
+
+    /**
+     * Method that returns the number of new accounts opened.
+     * @return accounts opened
+     */
+    long getOpened();
+
+    /**
+     * Method that returns the number of closed accounts opened again.
+     * @return accounts reopened
+     */
+    long getReopened();
+
+    /**
+     * Method that returns the number of openings rejected, for any reason.
+     * @return openings rejected
+     */
+    long getOpenRejected();
+
+    /**
+     * Method that returns the number of accounts closed.
+     * @return accounts closed
+     */
+    long getClosed();
+
+    /**
+     * Method that returns the number of deposits made.
+     * @return deposits made
+     */
+    long getDeposits();
+
+    /**
+     * Method that returns the number of withdrawals made.
+     * @return withdrawals made
+     */
+    long getWithdrawals();
+
+    /**
+     * Method that returns the number of withdrawals rejected because the balance was too low.
+     * @return withdrawals rejected for insufficient funds
+     */
+    long getInsufficientFunds();
+
+    /**
+     * Method that returns the number of month-end updates run.
+     * @return month-end updates
+     */
+    long getMonthEnds();
+
+    /**
+     * Method that returns the number of accounts updated by all month-end updates together.
+     * @return accounts updated at month end
+     */
+    long getMonthEndAccounts();
+
+    /**
+     * Method that returns the number of times an operation ended with an outcome.
+     * @param operation operation label, such as "withdraw"
+     * @param outcome outcome label, such as "insufficient-funds"
+     * @return number of times -- 0 if the operation or outcome is unknown
+     */
+    long getCount(String operation, String outcome);
+
+    /**
+     * Method that returns a percentile of the latencies recorded for an operation.
+     * @param operation operation label, such as "deposit"
+     * @param percentile percentage from 0 to 100, such as 99.9
+     * @return latency in nanoseconds -- 0 if the operation is unknown or has no latencies recorded
+     */
+    long getLatencyNanos(String operation, double percentile);
+
+    /**
+     * Method that returns every count and latency summary as plain text.
+     * @return metrics dump
+     */
+    String dump();
+}
@@ -0,0 +1,34 @@
+package bankteller.demo1;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * This class is the Java Flight Recorder event for one AccountDatabase operation on a single account: an opening,
+ *  closing, deposit, or withdrawal.
+ * These operations usually take microseconds, so by default only those taking 1 ms or more are recorded, which is
+ *  cheap enough for a continuous recording; lower the "bankteller.AccountOperation#threshold" setting to record more.
+ * @author Afsana Rahman, Mini Sinha
+ */
+@Name("bankteller.AccountOperation")
+@Label("Account Operation")
+@Category({"Bank Teller", "Account Database"})
+@Description("An opening, closing, deposit, or withdrawal on one account")
+@Threshold("1 ms")
+@StackTrace(false)
+public class AccountOperationEvent extends Event {
+
+    @Label("Operation")
+    public String operation;
+
+    @Label("Account Type")
+    public String accountType;
+
+    @Label("Outcome")
+    public String outcome;
+}
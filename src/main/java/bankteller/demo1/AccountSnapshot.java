@@ -0,0 +1,460 @@
+package bankteller.demo1;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
+
+/**
+ * This class is a copy of every account in a database at one moment, which can be saved to and loaded from a
+ *  compact binary file.
+ * A snapshot file holds a table of holder profiles, each written once however many accounts the holder has,
+ *  followed by one fixed-size record per account with its holder number, type, balance, closed flag, loyalty,
+ *  campus, and Money Market withdrawal count.
+ * Files are written and read through memory-mapped windows, so a snapshot is copied straight between the page cache
+ *  and the account columns without stream buffering.
+ * When the database is journaled, a snapshot is taken at a journal segment boundary and is named after the first
+ *  segment it does not include. Recovery loads the newest snapshot and replays only the segments from that one on,
+ *  and older segments and snapshots are deleted once a newer snapshot is saved.
+ * @author Afsana Rahman, Mini Sinha
+ */
+public class AccountSnapshot {
+
+    private static final int MAGIC = 0x4254534E;
+    private static final int VERSION = 1;
+    private static final String SNAPSHOT_PREFIX = "snapshot-";
+    private static final String SNAPSHOT_SUFFIX = ".snap";
+    private static final int HEADER_BYTES = 4 + 4 + 8 + 4 + 4;
+    private static final int ACCOUNT_BYTES = 4 + 1 + 1 + 1 + 1 + 4 + 8;
+    private static final int WINDOW_BYTES = 64 << 20;
+    private static final byte CLOSED = 1;
+    private static final byte NO_CAMPUS = -1;
+
+    final long journalSegment;
+    final int numAccounts;
+    int numProfiles;
+    final Profile[] profiles;
+    final int[] profileIds;
+    final byte[] types;
+    final long[] balances;
+    final boolean[] closed;
+    final byte[] loyalty;
+    final byte[] campuses;
+    final int[] withdrawals;
+    private IdentityHashMap<Profile, Integer> profileNumbers;
+
+    /**
+     * Constructor that creates an empty snapshot to be filled in one account at a time with set().
+     * @param numAccounts number of accounts in the snapshot
+     * @param journalSegment first journal segment the snapshot does not include -- 0 if the database is not journaled
+     */
+    AccountSnapshot(int numAccounts, long journalSegment) {
+        this(numAccounts, 0, new Profile[numAccounts], new int[numAccounts], new byte[numAccounts],
+                new long[numAccounts], new boolean[numAccounts], new byte[numAccounts], new byte[numAccounts],
+                new int[numAccounts], journalSegment);
+        this.profileNumbers = new IdentityHashMap<>(numAccounts);
+    }
+
+    /**
+     * Constructor that creates a snapshot from account columns that have already been copied.
+     * @param numAccounts number of accounts in the snapshot
+     * @param numProfiles number of holder profiles in the snapshot
+     * @param profiles holder profiles, each referred to by number from profileIds
+     * @param profileIds holder profile number of each account
+     * @param types account type index of each account
+     * @param balances balance of each account in cents
+     * @param closed closed flag of each account
+     * @param loyalty loyalty of each Savings or Money Market account
+     * @param campuses campus code of each College Checking account, -1 if none
+     * @param withdrawals withdrawal count of each Money Market account
+     * @param journalSegment first journal segment the snapshot does not include -- 0 if the database is not journaled
+     */
+    AccountSnapshot(int numAccounts, int numProfiles, Profile[] profiles, int[] profileIds, byte[] types,
+                    long[] balances, boolean[] closed, byte[] loyalty, byte[] campuses, int[] withdrawals,
+                    long journalSegment) {
+        this.numAccounts = numAccounts;
+        this.numProfiles = numProfiles;
+        this.profiles = profiles;
+        this.profileIds = profileIds;
+        this.types = types;
+        this.balances = balances;
+        this.closed = closed;
+        this.loyalty = loyalty;
+        this.campuses = campuses;
+        this.withdrawals = withdrawals;
+        this.journalSegment = journalSegment;
+    }
+
+    /**
+     * Method that copies the values of one account into the snapshot.
+     * The database shares one Profile between all accounts of a holder, so the holder's profile is added to the
+     *  profile table the first time it is seen and every later account refers to it by number.
+     * @param index position of the account in the snapshot
+     * @param account account to be copied
+     */
+    void set(int index, Account account) {
+        Profile holder = account.getHolder();
+        Integer profileId = profileNumbers.get(holder);
+        if (profileId == null) {
+            profileId = numProfiles;
+            profiles[numProfiles++] = holder;
+            profileNumbers.put(holder, profileId);
+        }
+        profileIds[index] = profileId;
+        types[index] = (byte) account.getAccountType().ordinal();
+        balances[index] = account.getBalanceCents();
+        closed[index] = account.isClosed();
+        campuses[index] = NO_CAMPUS;
+        if (account instanceof Savings) {
+            loyalty[index] = (byte) ((Savings) account).getLoyal();
+        }
+        if (account instanceof MoneyMarket) {
+            withdrawals[index] = ((MoneyMarket) account).getWithdrawals();
+        }
+        if (account instanceof CollegeChecking) {
+            Campus campus = ((CollegeChecking) account).getCampus();
+            campuses[index] = campus == null ? NO_CAMPUS : (byte) campus.getCampusCode();
+        }
+    }
+
+    /**
+     * Method that returns the number of accounts in the snapshot.
+     * @return number of accounts
+     */
+    public int getNumAccounts() {
+        return numAccounts;
+    }
+
+    /**
+     * This method takes a snapshot of a database and saves it in a directory, then deletes the journal segments and
+     *  older snapshots it replaces.
+     * Changes to the database only pause while the accounts are copied in memory; the file is written afterwards.
+     * @param database database to be saved
+     * @param directory directory the snapshot is saved in, normally the journal directory
+     * @return path of the saved snapshot
+     * @throws IOException if the snapshot cannot be written
+     */
+    public static Path take(AccountDatabase database, Path directory) throws IOException {
+        AccountSnapshot snapshot = database.captureSnapshot();
+        Files.createDirectories(directory);
+        Path path = directory.resolve(String.format("%s%016d%s", SNAPSHOT_PREFIX, snapshot.journalSegment,
+                SNAPSHOT_SUFFIX));
+        snapshot.save(path);
+        truncate(directory, snapshot.journalSegment);
+        return path;
+    }
+
+    /**
+     * This method saves a snapshot of a database to the given file, such as an export to be loaded elsewhere.
+     * Journal segments are not deleted, since the file is not kept with the journal.
+     * @param database database to be saved
+     * @param path file the snapshot is saved to, replaced if it exists
+     * @throws IOException if the snapshot cannot be written
+     */
+    public static void export(AccountDatabase database, Path path) throws IOException {
+        database.captureSnapshot().save(path);
+    }
+
+    /**
+     * Helper method that writes the snapshot next to its destination, then moves it into place in one step, so a
+     *  crash never leaves a partly written snapshot under the destination's name.
+     * @param path file the snapshot is saved to
+     * @throws IOException if the snapshot cannot be written
+     */
+    private void save(Path path) throws IOException {
+        Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+        write(temporary);
+        Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * This method takes a snapshot of a database on a background thread, as take() does.
+     * @param database database to be saved
+     * @param directory directory the snapshot is saved in, normally the journal directory
+     * @return future completed with the path of the saved snapshot
+     */
+    public static CompletableFuture<Path> takeInBackground(AccountDatabase database, Path directory) {
+        CompletableFuture<Path> result = new CompletableFuture<>();
+        Thread thread = new Thread(() -> {
+            try {
+                result.complete(take(database, directory));
+            } catch (IOException | RuntimeException e) {
+                result.completeExceptionally(e);
+            }
+        }, "bankteller-snapshot");
+        thread.setDaemon(true);
+        thread.start();
+        return result;
+    }
+
+    /**
+     * Helper method that deletes the journal segments and snapshots older than a newly saved snapshot.
+     * @param directory journal directory
+     * @param journalSegment first journal segment the new snapshot does not include
+     * @throws IOException if a file cannot be deleted
+     */
+    private static void truncate(Path directory, long journalSegment) throws IOException {
+        for (Path segment : AccountJournal.segments(directory)) {
+            if (AccountJournal.segmentNumber(segment) < journalSegment) {
+                Files.deleteIfExists(segment);
+            }
+        }
+        for (Path snapshot : snapshots(directory)) {
+            if (snapshotSegment(snapshot) < journalSegment) {
+                Files.deleteIfExists(snapshot);
+            }
+        }
+    }
+
+    /**
+     * This method loads the newest snapshot in a directory into an empty database.
+     * @param directory directory holding the snapshots
+     * @param database empty database the accounts are added to
+     * @return first journal segment the loaded snapshot does not include -- 0 if there is no snapshot
+     * @throws IOException if the snapshot cannot be read
+     */
+    public static long loadLatest(Path directory, AccountDatabase database) throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return 0;
+        }
+        List<Path> snapshots = snapshots(directory);
+        if (snapshots.isEmpty()) {
+            return 0;
+        }
+        return load(snapshots.get(snapshots.size() - 1), database).journalSegment;
+    }
+
+    /**
+     * This method loads a snapshot file into an empty database.
+     * Accounts are added exactly as saved, without the checks made when opening an account.
+     * @param path snapshot file
+     * @param database empty database the accounts are added to
+     * @return snapshot header, holding the number of accounts loaded and the journal segment to replay from
+     * @throws IOException if the file cannot be read or is not a complete snapshot
+     */
+    public static AccountSnapshot load(Path path, AccountDatabase database) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MappedWindow in = new MappedWindow(channel, FileChannel.MapMode.READ_ONLY, channel.size());
+            in.ensure(HEADER_BYTES);
+            if (in.buffer.getInt() != MAGIC || in.buffer.getInt() != VERSION) {
+                throw new IOException(path + " is not a Bank Teller snapshot");
+            }
+            long journalSegment = in.buffer.getLong();
+            int numProfiles = in.buffer.getInt();
+            int numAccounts = in.buffer.getInt();
+
+            Profile[] profiles = new Profile[numProfiles];
+            byte[] scratch = new byte[256];
+            for (int i = 0; i < numProfiles; i++) {
+                in.ensure(Short.BYTES);
+                int length = in.buffer.getShort() & 0xFFFF;
+                in.ensure(length + Short.BYTES);
+                scratch = readBytes(in, scratch, length);
+                String fname = new String(scratch, 0, length, StandardCharsets.UTF_8);
+                length = in.buffer.getShort() & 0xFFFF;
+                in.ensure(length + Integer.BYTES);
+                scratch = readBytes(in, scratch, length);
+                String lname = new String(scratch, 0, length, StandardCharsets.UTF_8);
+                int dob = in.buffer.getInt();
+                profiles[i] = new Profile(fname, lname, Date.fromPackedInt(dob));
+            }
+
+            database.ensureCapacity(numAccounts);
+            for (int i = 0; i < numAccounts; i++) {
+                in.ensure(ACCOUNT_BYTES);
+                Profile holder = profiles[in.buffer.getInt()];
+                int type = in.buffer.get();
+                boolean isClosed = in.buffer.get() == CLOSED;
+                int loyal = in.buffer.get();
+                int campus = in.buffer.get();
+                int withdrawalCount = in.buffer.getInt();
+                long balance = in.buffer.getLong();
+                database.restore(newAccount(type, holder, balance, isClosed, loyal, campus, withdrawalCount));
+            }
+            in.ensure(Integer.BYTES);
+            if (in.buffer.getInt() != MAGIC) {
+                throw new IOException(path + " is not a complete snapshot");
+            }
+            return new AccountSnapshot(numAccounts, numProfiles, profiles, null, null, null, null, null, null, null,
+                    journalSegment);
+        }
+    }
+
+    /**
+     * Helper method that recreates an account from its saved values.
+     * @param type account type index
+     * @param holder account holder
+     * @param balance balance in cents
+     * @param isClosed true if the account is closed
+     * @param loyal loyalty of a Savings or Money Market account
+     * @param campus campus code of a College Checking account, -1 if none
+     * @param withdrawalCount withdrawal count of a Money Market account
+     * @return account holding the saved values
+     */
+    private static Account newAccount(int type, Profile holder, long balance, boolean isClosed, int loyal,
+                                      int campus, int withdrawalCount) {
+        Account account;
+        switch (type) {
+            case AccountDatabase.CHECKING:
+                account = new Checking(holder, 0);
+                break;
+            case AccountDatabase.COLLEGE_CHECKING:
+                CollegeChecking collegeChecking = new CollegeChecking(holder, 0, 0);
+                collegeChecking.changeCampus(campus == NO_CAMPUS ? null : Campus.values()[campus]);
+                account = collegeChecking;
+                break;
+            case AccountDatabase.MONEY_MARKET:
+                MoneyMarket moneyMarket = new MoneyMarket(holder, 0);
+                moneyMarket.changeLoyalty(loyal);
+                moneyMarket.setWithdrawals(withdrawalCount);
+                account = moneyMarket;
+                break;
+            default:
+                account = new Savings(holder, 0, loyal);
+        }
+        account.balanceCents = balance;
+        account.closed = isClosed;
+        return account;
+    }
+
+    /**
+     * This method writes the snapshot to a file, replacing anything already there.
+     * @param path file the snapshot is written to
+     * @throws IOException if the file cannot be written
+     */
+    void write(Path path) throws IOException {
+        byte[][] names = new byte[2 * numProfiles][];
+        long size = HEADER_BYTES + (long) numAccounts * ACCOUNT_BYTES + Integer.BYTES;
+        for (int i = 0; i < numProfiles; i++) {
+            names[2 * i] = profiles[i].getFname().getBytes(StandardCharsets.UTF_8);
+            names[2 * i + 1] = profiles[i].getLname().getBytes(StandardCharsets.UTF_8);
+            size += 2 * Short.BYTES + names[2 * i].length + names[2 * i + 1].length + Integer.BYTES;
+        }
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            MappedWindow out = new MappedWindow(channel, FileChannel.MapMode.READ_WRITE, size);
+            out.ensure(HEADER_BYTES);
+            out.buffer.putInt(MAGIC).putInt(VERSION).putLong(journalSegment).putInt(numProfiles).putInt(numAccounts);
+            for (int i = 0; i < numProfiles; i++) {
+                byte[] fname = names[2 * i];
+                byte[] lname = names[2 * i + 1];
+                out.ensure(2 * Short.BYTES + fname.length + lname.length + Integer.BYTES);
+                out.buffer.putShort((short) fname.length).put(fname);
+                out.buffer.putShort((short) lname.length).put(lname);
+                Date dob = profiles[i].getDob();
+                out.buffer.putInt(dob.toPackedInt());
+                names[2 * i] = null;
+                names[2 * i + 1] = null;
+            }
+            for (int i = 0; i < numAccounts; i++) {
+                out.ensure(ACCOUNT_BYTES);
+                out.buffer.putInt(profileIds[i]).put(types[i]).put(closed[i] ? CLOSED : 0).put(loyalty[i])
+                        .put(campuses[i]).putInt(withdrawals[i]).putLong(balances[i]);
+            }
+            out.ensure(Integer.BYTES);
+            out.buffer.putInt(MAGIC);
+            out.buffer.force();
+        }
+    }
+
+    /**
+     * Helper method that reads bytes from a mapped window into a scratch array, growing the array if needed.
+     * @param in window being read
+     * @param scratch array the bytes are read into
+     * @param length number of bytes to read
+     * @return array holding the bytes, which is scratch unless it was too small
+     */
+    private static byte[] readBytes(MappedWindow in, byte[] scratch, int length) {
+        if (scratch.length < length) {
+            scratch = new byte[length];
+        }
+        in.buffer.get(scratch, 0, length);
+        return scratch;
+    }
+
+    /**
+     * Helper method that lists the snapshots in a directory, oldest first.
+     * @param directory directory holding the snapshots
+     * @return paths of the snapshots in the order they were taken
+     * @throws IOException if the directory cannot be listed
+     */
+    static List<Path> snapshots(Path directory) throws IOException {
+        List<Path> snapshots = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            files.filter(path -> {
+                String name = path.getFileName().toString();
+                return name.startsWith(SNAPSHOT_PREFIX) && name.endsWith(SNAPSHOT_SUFFIX);
+            }).forEach(snapshots::add);
+        }
+        Collections.sort(snapshots);
+        return snapshots;
+    }
+
+    /**
+     * Helper method that returns the first journal segment a snapshot does not include, from its file name.
+     * @param snapshot path of the snapshot
+     * @return journal segment number
+     */
+    static long snapshotSegment(Path snapshot) {
+        String name = snapshot.getFileName().toString();
+        return Long.parseLong(name.substring(SNAPSHOT_PREFIX.length(), name.length() - SNAPSHOT_SUFFIX.length()));
+    }
+
+    /**
+     * This class maps a file one window at a time, since a single mapping cannot cover more than 2 GB.
+     */
+    private static class MappedWindow {
+
+        private final FileChannel channel;
+        private final FileChannel.MapMode mode;
+        private final long size;
+        private long start;
+        private MappedByteBuffer buffer;
+
+        /**
+         * Constructor that prepares to map a file from its start.
+         * @param channel open file
+         * @param mode READ_ONLY to read the file, READ_WRITE to write it
+         * @param size size of the file
+         */
+        MappedWindow(FileChannel channel, FileChannel.MapMode mode, long size) {
+            this.channel = channel;
+            this.mode = mode;
+            this.size = size;
+        }
+
+        /**
+         * Method that makes sure the current window holds the next given number of bytes, mapping the next
+         *  window starting at the current position if it does not.
+         * @param bytes number of bytes about to be read or written
+         * @throws IOException if the next window cannot be mapped, or the file ends before that many bytes
+         */
+        void ensure(int bytes) throws IOException {
+            if (buffer != null && buffer.remaining() >= bytes) {
+                return;
+            }
+            if (buffer != null) {
+                start += buffer.position();
+                if (mode == FileChannel.MapMode.READ_WRITE) {
+                    buffer.force();
+                }
+            }
+            long length = Math.min(WINDOW_BYTES, size - start);
+            if (length < Math.min(bytes, size - start) || start + bytes > size && mode == FileChannel.MapMode.READ_WRITE) {
+                throw new IOException("Snapshot file is truncated");
+            }
+            buffer = channel.map(mode, start, length);
+        }
+    }
+}
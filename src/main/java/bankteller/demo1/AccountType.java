@@ -0,0 +1,81 @@
+package bankteller.demo1;
+
+/**
+ * This enum lists the types of bank accounts, in the order they are listed by type:
+ *  Checking, College Checking, Money Market, then Savings.
+ * Each account reports its type as one of these constants, so code that depends on the type compares constants or
+ *  switches on them instead of comparing type names. The ordinal of each type is the type number stored in
+ *  journals and snapshots.
+ * @author Afsana Rahman, Mini Sinha
+ */
+public enum AccountType {
+
+    CHECKING("Checking", true),
+    COLLEGE_CHECKING("College Checking", true),
+    MONEY_MARKET("Money Market", false),
+    SAVINGS("Savings", false);
+
+    private static final AccountType[] TYPES = values();
+
+    private final String typeName;
+    private final boolean checking;
+
+    /**
+     * Constructor that creates an account type.
+     * @param typeName name of the type, as returned by Account.getType()
+     * @param checking true if a holder may only have one account of this type or the other Checking type
+     */
+    AccountType(String typeName, boolean checking) {
+        this.typeName = typeName;
+        this.checking = checking;
+    }
+
+    /**
+     * Method that returns the name of the account type.
+     * @return type name, such as "Checking" or "Money Market"
+     */
+    public String getName() {
+        return typeName;
+    }
+
+    /**
+     * Method that checks if this is one of the Checking types a holder may only have one of.
+     * @return true for Checking and College Checking, false otherwise
+     */
+    public boolean isChecking() {
+        return checking;
+    }
+
+    /**
+     * Method that returns the account type with the given type number.
+     * @param ordinal type number, as stored in journals and snapshots
+     * @return account type
+     */
+    public static AccountType of(int ordinal) {
+        return TYPES[ordinal];
+    }
+
+    /**
+     * Method that returns the account type with the given name.
+     * @param typeName type name, such as "Checking" or "Money Market"
+     * @return account type
+     * @throws IllegalArgumentException if no account type has the given name
+     */
+    public static AccountType fromName(String typeName) {
+        for (AccountType type : TYPES) {
+            if (type.typeName.equals(typeName)) {
+                return type;
+            }
+        }
+        throw new IllegalArgumentException("Unknown account type: " + typeName);
+    }
+
+    /**
+     * Method that returns the name of the account type.
+     * @return type name, such as "Checking" or "Money Market"
+     */
+    @Override
+    public String toString() {
+        return typeName;
+    }
+}
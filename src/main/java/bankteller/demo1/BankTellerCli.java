@@ -0,0 +1,223 @@
+package bankteller.demo1;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * This is the driver class for running Bank Teller jobs from the command line, without a window.
+ * It uses only the account model and its journal and snapshot files, so it starts without the JavaFX toolkit and
+ *  runs on machines with no display. Usage:
+ * <pre>
+ * BankTellerCli [--journal dir] [--fsync always|interval|never] [--snapshot file] command [arguments]
+ *   print                      list all accounts
+ *   print-type                 list all accounts ordered by type
+ *   print-fees                 list all accounts with their monthly fees and interest
+ *   update                     apply monthly fees and interest, then list all accounts
+ *   run file [results]         apply a file of teller commands, writing results to a file or standard output
+ *   import snapshot            load the accounts saved in a snapshot file into an empty database
+ *   export snapshot            save all accounts to a snapshot file
+ * </pre>
+ * The accounts are restored from the journal directory, if one is given or set with the "bankteller.journal.dir"
+ *  system property, or else from the snapshot file, if one is given. Changes made by a job are recorded in the
+ *  journal. When the "bankteller.metrics" system property is true, the metrics of the job are printed to standard
+ *  error after it.
+ * @author Afsana Rahman, Mini Sinha
+ */
+public class BankTellerCli {
+
+    private static final int EXIT_OK = 0;
+    private static final int EXIT_ERROR = 1;
+    private static final int EXIT_USAGE = 2;
+    private static final int BUFFER_CHARS = 1 << 16;
+
+    /**
+     * This class only holds static helpers and is never instantiated.
+     */
+    private BankTellerCli() {
+    }
+
+    /**
+     * Driver main. Runs one job and exits with status 0 if it succeeded, 1 if it failed, and 2 if the arguments
+     *  were not valid.
+     * @param args options, command, and arguments of the command
+     */
+    public static void main(String[] args) {
+        Writer out = new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8), BUFFER_CHARS);
+        int status;
+        try {
+            status = run(args, out);
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Bank Teller job failed: " + e.getMessage());
+            status = EXIT_ERROR;
+        }
+        try {
+            out.flush();
+        } catch (IOException e) {
+            status = EXIT_ERROR;
+        }
+        System.exit(status);
+    }
+
+    /**
+     * This method reads the options and command from the arguments and runs the job.
+     * @param args options, command, and arguments of the command
+     * @param out destination for listings and results
+     * @return exit status of the job
+     * @throws IOException if a file cannot be read or written
+     */
+    static int run(String[] args, Writer out) throws IOException {
+        Path journalDirectory = null;
+        AccountJournal.FsyncPolicy policy = AccountJournal.FsyncPolicy.INTERVAL;
+        Path snapshot = null;
+        int arg = 0;
+        while (arg < args.length && args[arg].startsWith("--")) {
+            if (arg + 1 == args.length) {
+                return usage("Missing value for " + args[arg] + ".");
+            }
+            switch (args[arg]) {
+                case "--journal":
+                    journalDirectory = Path.of(args[arg + 1]);
+                    break;
+                case "--fsync":
+                    try {
+                        policy = AccountJournal.FsyncPolicy.valueOf(args[arg + 1].toUpperCase());
+                    } catch (IllegalArgumentException e) {
+                        return usage("Unknown fsync policy " + args[arg + 1] + ".");
+                    }
+                    break;
+                case "--snapshot":
+                    snapshot = Path.of(args[arg + 1]);
+                    break;
+                default:
+                    return usage("Unknown option " + args[arg] + ".");
+            }
+            arg += 2;
+        }
+        if (arg == args.length) {
+            return usage("Missing command.");
+        }
+
+        if (snapshot != null && (journalDirectory != null || System.getProperty("bankteller.journal.dir") != null)) {
+            return usage("A snapshot file cannot be combined with a journal, which restores its own snapshots.");
+        }
+
+        AccountDatabase database = new AccountDatabase();
+        if (snapshot != null) {
+            AccountSnapshot.load(snapshot, database);
+        }
+        AccountJournal journal = journalDirectory != null
+                ? AccountJournal.recover(journalDirectory, database, policy)
+                : AccountJournal.recoverFromSystemProperties(database);
+        AccountMetrics metrics = AccountMetrics.fromSystemProperties(database);
+        try {
+            return runCommand(args, arg, database, out);
+        } finally {
+            if (journal != null) {
+                journal.close();
+            }
+            if (metrics != null) {
+                System.err.print(metrics.dump());
+            }
+        }
+    }
+
+    /**
+     * Helper method that runs one command on the restored database.
+     * @param args all arguments
+     * @param arg index of the command in the arguments
+     * @param database restored account database
+     * @param out destination for listings and results
+     * @return exit status of the job
+     * @throws IOException if a file cannot be read or written
+     */
+    private static int runCommand(String[] args, int arg, AccountDatabase database, Writer out) throws IOException {
+        String command = args[arg];
+        int numArgs = args.length - arg - 1;
+        Teller teller = new Teller(database);
+        switch (command) {
+            case "print":
+                teller.execute("P", out);
+                return EXIT_OK;
+            case "print-type":
+                teller.execute("PT", out);
+                return EXIT_OK;
+            case "print-fees":
+                teller.execute("PI", out);
+                return EXIT_OK;
+            case "update":
+                teller.execute("UB", out);
+                return EXIT_OK;
+            case "run":
+                if (numArgs < 1) {
+                    return usage("Missing command file.");
+                }
+                Path input = Path.of(args[arg + 1]);
+                TellerBatch batch = new TellerBatch(database);
+                if (numArgs > 1) {
+                    batch.process(input, Path.of(args[arg + 2]));
+                } else {
+                    try (Reader in = new InputStreamReader(Files.newInputStream(input), StandardCharsets.UTF_8)) {
+                        batch.process(in, out);
+                    }
+                }
+                return EXIT_OK;
+            case "import":
+                if (numArgs < 1) {
+                    return usage("Missing snapshot file.");
+                }
+                return importSnapshot(Path.of(args[arg + 1]), database, out);
+            case "export":
+                if (numArgs < 1) {
+                    return usage("Missing snapshot file.");
+                }
+                AccountSnapshot.export(database, Path.of(args[arg + 1]));
+                out.append("Exported ").append(String.valueOf(database.getNumAcct())).append(" accounts.\n");
+                return EXIT_OK;
+            default:
+                return usage("Unknown command " + command + ".");
+        }
+    }
+
+    /**
+     * Helper method that loads a snapshot file into the database.
+     * When the database is journaled, a snapshot of the imported accounts is saved with the journal, since accounts
+     *  loaded from a snapshot are not recorded in the journal one by one.
+     * @param path snapshot file
+     * @param database database to load into, which must be empty
+     * @param out destination for the result
+     * @return exit status of the job
+     * @throws IOException if the snapshot cannot be read or saved
+     */
+    private static int importSnapshot(Path path, AccountDatabase database, Writer out) throws IOException {
+        if (database.getNumAcct() != 0) {
+            System.err.println("Accounts can only be imported into an empty database.");
+            return EXIT_ERROR;
+        }
+        AccountSnapshot snapshot = AccountSnapshot.load(path, database);
+        AccountJournal journal = database.getJournal();
+        if (journal != null) {
+            AccountSnapshot.take(database, journal.getDirectory());
+        }
+        out.append("Imported ").append(String.valueOf(snapshot.getNumAccounts())).append(" accounts.\n");
+        return EXIT_OK;
+    }
+
+    /**
+     * Helper method that reports invalid arguments along with the usage of the command.
+     * @param message what was wrong with the arguments
+     * @return exit status for invalid arguments
+     */
+    private static int usage(String message) {
+        System.err.println(message);
+        System.err.println("Usage: BankTellerCli [--journal dir] [--fsync always|interval|never] [--snapshot file]"
+                + " print|print-type|print-fees|update|run file [results]|import snapshot|export snapshot");
+        return EXIT_USAGE;
+    }
+}
@@ -1,10 +1,14 @@
 package bankteller.demo1;
 
+import javafx.concurrent.Task;
 import javafx.fxml.FXML;
 import javafx.scene.Node;
 import javafx.scene.control.*;
+import javafx.stage.FileChooser;
 
-import java.util.InputMismatchException;
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.CancellationException;
 
 /**
  * This class controls the actions on bank accounts in the Bank Teller.
@@ -39,7 +43,7 @@ public class BankTellerController {
     private RadioButton deposit;
 
     @FXML
-    private TextArea displayBox;
+    private ListView<String> displayList;
 
     @FXML
     private TextField dob;
@@ -110,8 +114,25 @@ public class BankTellerController {
     @FXML
     private RadioButton withdraw;
 
+    @FXML
+    private MenuItem listAll;
+
+    @FXML
+    private MenuItem listByType;
+
+    @FXML
+    private MenuItem listWithFees;
+
+    @FXML
+    private MenuItem updateAll;
+
+    @FXML
+    private ProgressBar progress;
+
+    @FXML
+    private Button cancel;
+
     private static final int VALID_INPUT_NUM = 5;
-    private static final int NOT_FOUND = -1;
 
     private static final int MM_MIN_BAL = 2500;
 
@@ -120,11 +141,22 @@ public class BankTellerController {
 
     AccountDatabase database = new AccountDatabase();
 
+    private OutputConsole displayBox;
+
+    private ReportTask job;
+
+    private String lastMessage;
+
     /**
      * This method initializes the "Manage Accounts" tab in the Bank Teller.
      */
     @FXML
     void initialize() {
+        if(displayBox == null) {
+            displayBox = new OutputConsole(displayList);
+            recoverJournal();
+            enableMetrics();
+        }
         fname.setText(null);
         lname.setText(null);
         dob.setText(null);
@@ -146,6 +178,52 @@ public class BankTellerController {
         initializeTransactions();
     }
 
+    /**
+     * This method rebuilds the account database from its journal when journaling is set up, so accounts survive
+     *  closing the Bank Teller. Journaling is set up with the "bankteller.journal.dir" system property.
+     */
+    private void recoverJournal() {
+        try {
+            if(AccountJournal.recoverFromSystemProperties(database) != null) {
+                displayBox.appendText("Restored " + database.getNumAcct() + " accounts from the journal.\n");
+            }
+        } catch(IOException | RuntimeException e) {
+            displayBox.appendText("Could not open the journal: " + e.getMessage() + "\n");
+        }
+    }
+
+    /**
+     * This method turns on operation metrics when the "bankteller.metrics" system property is set, so the Bank
+     *  Teller's operations can be watched over JMX. Accounts restored from the journal are not counted.
+     */
+    private void enableMetrics() {
+        try {
+            AccountMetrics.fromSystemProperties(database);
+        } catch(RuntimeException e) {
+            displayBox.appendText("Could not turn on metrics: " + e.getMessage() + "\n");
+        }
+    }
+
+    /**
+     * This method closes the output log, and writes out and closes the journal, when the Bank Teller closes.
+     */
+    void shutdown() {
+        if(displayBox != null) {
+            try {
+                displayBox.close();
+            } catch(IOException e) {
+                System.err.println("Could not close the output log: " + e.getMessage());
+            }
+        }
+        AccountJournal journal = database.getJournal();
+        if(journal == null) return;
+        try {
+            journal.close();
+        } catch(IOException e) {
+            System.err.println("Could not close the journal: " + e.getMessage());
+        }
+    }
+
     /**
      * This method initializes the "Transactions" tab in the BankTeller.
      */
@@ -254,27 +332,39 @@ public class BankTellerController {
 
     /**
      * This method processes either adding or removing an account from the account database.
+     * The action is recorded as a flight recorder event, with the message shown to the teller as its outcome.
      */
     @FXML
     void accountAction() {
-        if(!errorCheck()) return;
+        TellerActionEvent event = beginAction();
+        Account account = manageAccount();
+        commitAction(event, openClose.getSelectedToggle() == openAccount ? "open" : "close", account);
+    }
+
+    /**
+     * This method adds or removes an account from the account database if the user input is valid.
+     * @return account made from the user input -- null if the input was rejected before making it
+     */
+    private Account manageAccount() {
+        if(jobRunning()) return null;
+        if(!errorCheck()) return null;
 
         Account account = makeAccount();
-        if(openClose.getSelectedToggle() == openAccount && !validBalance()) return;
+        if(openClose.getSelectedToggle() == openAccount && !validBalance()) return account;
 
         if(openClose.getSelectedToggle() == openAccount) {
             open(account);
         } else { // close account
-            int accountNum = findAccount(account);
             if (database.close(account)) {
-                displayBox.appendText("Account closed.\n");
-            } else if(accountNum != NOT_FOUND){
-                displayBox.appendText("Account is closed already.\n");
+                show("Account closed.\n");
+            } else if(database.getAccount(account) != null){
+                show("Account is closed already.\n");
             } else {
-                displayBox.appendText(account.getHolder().toString() + " " + account.getType()
+                show(account.getHolder().toString() + " " + account.getType()
                         + " is not in the database.\n");
             }
         }
+        return account;
     }
 
     /**
@@ -337,16 +427,16 @@ public class BankTellerController {
      */
     private boolean errorCheck() {
         if(fname.getText() == null || lname.getText() == null) {
-            displayBox.appendText("Please enter a valid name.\n");
+            show("Please enter a valid name.\n");
             return false;
         } else if(dob.getText() == null || !validBirthday(dob.getText())) {
-            displayBox.appendText("Please enter a valid birthday.\n");
+            show("Please enter a valid birthday.\n");
             return false;
         } else if(acctType.getSelectedToggle() == null) {
-            displayBox.appendText("Please select an account type.\n");
+            show("Please select an account type.\n");
             return false;
         } else if(acctType.getSelectedToggle() == collegeChecking && campus.getSelectedToggle() == null) {
-            displayBox.appendText("Please select a campus.\n");
+            show("Please select a campus.\n");
             return false;
         }
 
@@ -354,9 +444,13 @@ public class BankTellerController {
             if(openClose.getSelectedToggle() == openAccount) {
                 String init = initialDeposit.getText();
                 double depos = Double.parseDouble(init);
+                if(!MoneyFormat.isValidAmount(depos)) {
+                    show("Not a valid initial deposit.\n");
+                    return false;
+                }
             }
         } catch(NumberFormatException e) {
-            displayBox.appendText("Not a valid initial deposit.\n");
+            show("Not a valid initial deposit.\n");
             return false;
         }
 
@@ -370,10 +464,10 @@ public class BankTellerController {
     private boolean validBalance() {
         double balance = Double.parseDouble(initialDeposit.getText());
         if (balance <= 0) {
-            displayBox.appendText("Initial deposit cannot be 0 or negative.\n");
+            show("Initial deposit cannot be 0 or negative.\n");
             return false;
         } else if (acctType.getSelectedToggle() == moneyMarket && balance < MM_MIN_BAL) {
-            displayBox.appendText("Minimum of $2500 to open a MoneyMarket account.\n");
+            show("Minimum of $2500 to open a MoneyMarket account.\n");
             return false;
         }
         return true;
@@ -387,104 +481,69 @@ public class BankTellerController {
      */
     private boolean validBirthday(String birthday) {
         if(dob.getText() == null) return false;
-        try {
-            Date bday = new Date(birthday);
-            if (!bday.isValid()) {
-                return false;
-            }
-
-            Date today = new Date();
-            return bday.compareTo(today) < 0;
-        } catch(NumberFormatException e) {
-            return false;
-        } catch(ArrayIndexOutOfBoundsException e) {
-            return false;
-        } catch (InputMismatchException e) {
+        Date bday = Date.parse(birthday);
+        if (bday == null || !bday.isValid()) {
             return false;
         }
-    }
-
-    /**
-     * Method that finds a given account in the current AccountDatabase.
-     * An account is considered "found" if there exists an account of the same type
-     *  (Checking, College Checking, Savings, Money Market) with the same holder.
-     * An account holder can only have one Checking OR College Checking account in the database, closed or not.
-     * @param account account to search for
-     * @return index where account is located in the AccountDatabase -- returns NOT_FOUND if it does not exist
-     */
-    private int findAccount(Account account) {
-        if(account == null) {
-            return NOT_FOUND;
-        }
-
-        Account[] accounts = database.getAccounts();
-        for(int i = 0; i < database.getNumAcct(); i++) {
-            if(accounts[i].equals(account)) {
-                return i;
-            } else if(accounts[i].getHolder().equals(account.getHolder())) {
-                if(accounts[i].getType().contains("Checking") && account.getType().contains("Checking")) {
-                    return i;
-                }
-            }
-        }
-        return NOT_FOUND;
+        return bday.compareTo(Date.today()) < 0;
     }
 
     /**
      * This method re/opens an account for a given account holder.
      * An account is not valid for opening if the holder already has an open account of the same type in the database.
+     * The database finds the account and opens it in one step, telling whether it was opened, reopened, or why not.
      * @param account account to be opened
      */
     private void open(Account account) {
-        if(findAccount(account) != NOT_FOUND) { // reopening old account
-            int accountNum = findAccount(account);
-            Account[] accounts = database.getAccounts();
-            if(accounts[accountNum].getHolder().equals(account.getHolder()) && !accounts[accountNum].equals(account)) {
-                if(accounts[accountNum].getType().contains("Checking") && account.getType().contains("Checking")) {
-                    displayBox.appendText(account.getHolder().toString() + " same account(type) is in the database.\n");
-                }
-            } else if(accounts[accountNum].isClosed()) {
-                database.open(account);
-                displayBox.appendText("Account reopened.\n");
-            } else {
-                displayBox.appendText(account.getHolder().toString() + " same account(type) is in the database.\n");
-            }
-        } else if (database.open(account)) { // opening new account
-            displayBox.appendText("Account opened.\n");
+        switch (database.openAccount(account)) {
+            case OPENED:
+                show("Account opened.\n");
+                break;
+            case REOPENED:
+                show("Account reopened.\n");
+                break;
+            case INVALID: // an initial deposit of less than half a cent
+                show("Initial deposit cannot be 0 or negative.\n");
+                break;
+            default: // ALREADY_OPEN or CHECKING_LIMIT
+                show(account.getHolder().toString() + " same account(type) is in the database.\n");
+                break;
         }
     }
 
     /**
      * This method processes valid deposits and withdrawals into accounts in the account database.
+     * The transaction is recorded as a flight recorder event, with the message shown to the teller as its outcome.
      */
     @FXML
     void transaction() {
-        if(!validTransaction()) return;
+        TellerActionEvent event = beginAction();
+        Account account = transact();
+        commitAction(event, transact.getSelectedToggle() == deposit ? "deposit" : "withdraw", account);
+    }
+
+    /**
+     * This method makes a deposit or withdrawal if the user input is valid and the account is in the database.
+     * @return account made from the user input -- null if the input was rejected before making it
+     */
+    private Account transact() {
+        if(jobRunning()) return null;
+        if(!validTransaction()) return null;
 
         Account account = makeTAccount();
-        if(findAccount(account) == NOT_FOUND) {
-            displayBox.appendText(account.getHolder().toString() + " " + account.getType()
+        if(database.getAccount(account) == null) {
+            show(account.getHolder().toString() + " " + account.getType()
                     + " is not in the database.\n");
-            return;
-        } else {
-            Account[] accounts = database.getAccounts();
-            int comparing = findAccount(account);
-            if(accounts[comparing].getHolder().equals(account.getHolder())) {
-                if (accounts[comparing].getType().contains("Checking") && account.getType().contains("Checking")
-                        && !accounts[comparing].equals(account)) {
-                    displayBox.appendText(account.getHolder().toString() + " " + account.getType()
-                            + " is not in the database.\n");
-                    return;
-                }
-            }
+            return account;
         }
 
         if(transact.getSelectedToggle() == deposit) {
             database.deposit(account);
-            displayBox.appendText("Deposit - balance updated.\n");
+            show("Deposit - balance updated.\n");
         } else {
             withdrawal(account);
         }
+        return account;
     }
 
     /**
@@ -493,26 +552,29 @@ public class BankTellerController {
      */
     private boolean validTransaction() {
         if(tFname.getText() == null || tLname.getText() == null) {
-            displayBox.appendText("Please enter a valid name.\n");
+            show("Please enter a valid name.\n");
             return false;
         } else if(tdob.getText() == null || !validBirthday(tdob.getText())) {
-            displayBox.appendText("Please enter a valid birthday.\n");
+            show("Please enter a valid birthday.\n");
             return false;
         } else if(tAcctType.getSelectedToggle() == null) {
-            displayBox.appendText("Please select an account type.\n");
+            show("Please select an account type.\n");
             return false;
         }
 
         try {
             String amt = amount.getText();
             double amnt = Double.parseDouble(amt);
-            if(amnt <= 0) {
+            if(!MoneyFormat.isValidAmount(amnt)) {
+                show("Please enter a valid amount.\n");
+                return false;
+            } else if(amnt <= 0) {
                 String output = transact.getSelectedToggle() == deposit ? "Deposit - " : "Withdraw - ";
-                displayBox.appendText(output + "amount cannot be 0 or negative.\n");
+                show(output + "amount cannot be 0 or negative.\n");
                 return false;
             }
         } catch(NumberFormatException e) {
-            displayBox.appendText("Please enter a valid amount.\n");
+            show("Please enter a valid amount.\n");
             return false;
         }
 
@@ -525,14 +587,10 @@ public class BankTellerController {
      * @param account account being checked for possible withdrawal
      */
     private void withdrawal(Account account) {
-        double amnt = account.getBalance();
         if (database.withdraw(account)) {
-            displayBox.appendText("Withdraw - balance updated.\n");
+            show("Withdraw - balance updated.\n");
         } else {
-            int accountNum = findAccount(account);
-            if(database.getAccounts()[accountNum].getBalance() < amnt) {
-                displayBox.appendText("Withdraw - insufficient funds.\n");
-            }
+            show("Withdraw - insufficient funds.\n");
         }
     }
 
@@ -544,7 +602,7 @@ public class BankTellerController {
         if(database.getNumAcct() == 0) {
             displayBox.appendText("Account database is empty!\n");
         } else {
-            displayBox.appendText("*list of accounts in the database\n" + database.print());
+            startJob("print", "*list of accounts in the database\n", false, database::print);
         }
     }
 
@@ -556,7 +614,7 @@ public class BankTellerController {
         if(database.getNumAcct() == 0) {
             displayBox.appendText("Account database is empty!\n");
         } else {
-            displayBox.appendText("*list of accounts by account type. \n" + database.printByAccountType());
+            startJob("print-by-type", "*list of accounts by account type. \n", false, database::printByAccountType);
         }
     }
 
@@ -568,27 +626,281 @@ public class BankTellerController {
         if(database.getNumAcct() == 0) {
             displayBox.appendText("Account database is empty!\n");
         } else {
-            displayBox.appendText(database.printFeeAndInterest());
+            startJob("print-fees", "", false, database::printFeeAndInterest);
         }
 
     }
 
     /**
      * This method prints all accounts in the database after updating their balanaces based on monthly fees and interest.
+     * Once the update has started it always runs to completion; cancelling only stops the listing that follows.
      */
     @FXML
     void updateBalances() {
         if(database.getNumAcct() == 0) {
             displayBox.appendText("Account Database is empty!\n");
         } else {
-            Account[] accounts = database.getAccounts();
-            for(int i = 0; i < database.getNumAcct(); i++) {
-                double newBalance = accounts[i].getBalance() * accounts[i].monthlyInterest();
-                accounts[i].deposit(newBalance);
-                accounts[i].withdraw(accounts[i].fee());
+            startJob("update-balances", "*list of accounts with updated balance\n", true, out -> {
+                database.updateBalances();
+                database.print(out);
+            });
+        }
+    }
+
+    /**
+     * This method cancels the running list or update job.
+     */
+    @FXML
+    void cancelJob() {
+        if(job != null) {
+            job.cancel();
+        }
+    }
+
+    /**
+     * This method saves every line of output from this session to a file chosen by the user.
+     */
+    @FXML
+    void saveLog() {
+        FileChooser chooser = new FileChooser();
+        chooser.setTitle("Save log");
+        chooser.setInitialFileName("bankteller.log");
+        File file = chooser.showSaveDialog(displayList.getScene().getWindow());
+        if(file == null) return;
+        try {
+            displayBox.save(file.toPath());
+            displayBox.appendText("Log saved to " + file + ".\n");
+        } catch(IOException e) {
+            displayBox.appendText("Could not save log: " + e.getMessage() + "\n");
+        }
+    }
+
+    /**
+     * This method shows a message to the teller for an account action or transaction, keeping it as the outcome
+     *  recorded for the action.
+     * @param message message to show
+     */
+    private void show(String message) {
+        displayBox.appendText(message);
+        lastMessage = message;
+    }
+
+    /**
+     * This method starts the flight recorder event for an account action or transaction.
+     * @return event that has begun
+     */
+    private TellerActionEvent beginAction() {
+        lastMessage = null;
+        TellerActionEvent event = new TellerActionEvent();
+        event.begin();
+        return event;
+    }
+
+    /**
+     * This method ends the flight recorder event for an account action or transaction and commits it if it is
+     *  being recorded, with the last message shown to the teller as its outcome.
+     * @param event event begun for the action
+     * @param action name of the action, such as "open" or "withdraw"
+     * @param account account made from the user input -- null if the input was rejected before making it
+     */
+    private void commitAction(TellerActionEvent event, String action, Account account) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.action = action;
+            event.accountType = account == null ? null : account.getType();
+            event.accounts = account == null ? 0 : 1;
+            event.outcome = lastMessage == null ? null : lastMessage.strip();
+            event.commit();
+        }
+    }
+
+    /**
+     * This method checks whether the month-end update is running, telling the user to wait if so.
+     * The update holds every account while it runs, so opening, closing, deposits, and withdrawals wait for it to
+     *  finish instead of blocking the window. Listings do not conflict with them.
+     * @return true if the update is running, false otherwise
+     */
+    private boolean jobRunning() {
+        if(job != null && job.exclusive) {
+            show("Please wait for the balance update to finish.\n");
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * This method runs a report off the JavaFX application thread, showing its progress and output as it goes.
+     * The job is recorded as a flight recorder event lasting until it has finished, failed, or been cancelled.
+     * @param action name of the action recorded for the job, such as "print"
+     * @param header text shown before the report
+     * @param exclusive true if account actions must wait for the job to finish
+     * @param report report to run
+     */
+    private void startJob(String action, String header, boolean exclusive, Report report) {
+        displayBox.appendText(header);
+        job = new ReportTask(action, report, exclusive, database.getNumAcct());
+        progress.progressProperty().bind(job.progressProperty());
+        job.setOnSucceeded(event -> finishJob("completed"));
+        job.setOnFailed(event -> {
+            displayBox.appendText("Job failed: " + job.getException().getMessage() + "\n");
+            finishJob("failed");
+        });
+        job.setOnCancelled(event -> {
+            displayBox.appendText("Job cancelled.\n");
+            finishJob("cancelled");
+        });
+        setJobControls(true);
+
+        Thread worker = new Thread(job, "bank-teller-job");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    /**
+     * This method resets the job controls once a job has finished, failed, or been cancelled, and records the job.
+     * @param outcome how the job ended: "completed", "failed", or "cancelled"
+     */
+    private void finishJob(String outcome) {
+        TellerActionEvent event = job.event;
+        event.end();
+        if (event.shouldCommit()) {
+            event.action = job.action;
+            event.accounts = job.total;
+            event.outcome = outcome;
+            event.commit();
+        }
+        progress.progressProperty().unbind();
+        progress.setProgress(0);
+        setJobControls(false);
+        job = null;
+    }
+
+    /**
+     * This method enables or disables the controls that conflict with a running job.
+     * @param running true if a job is starting, false if it has ended
+     */
+    private void setJobControls(boolean running) {
+        listAll.setDisable(running);
+        listByType.setDisable(running);
+        listWithFees.setDisable(running);
+        updateAll.setDisable(running);
+        cancel.setDisable(!running);
+    }
+
+    /**
+     * This interface represents a report that streams its output to an Appendable.
+     */
+    private interface Report {
+        /**
+         * Method that writes the report.
+         * @param out destination for the report
+         * @throws IOException if the destination cannot be written to
+         */
+        void writeTo(Appendable out) throws IOException;
+    }
+
+    /**
+     * This class runs a report in the background and passes its output to the display box in chunks.
+     * Progress is the number of lines written out of the number of accounts in the database.
+     */
+    private class ReportTask extends Task<Void> implements Appendable {
+
+        private static final int CHUNK_SIZE = 1 << 16;
+
+        private final String action;
+        private final Report report;
+        private final boolean exclusive;
+        private final int total;
+        private final TellerActionEvent event = new TellerActionEvent();
+        private final StringBuilder chunk = new StringBuilder();
+        private int lines;
+
+        /**
+         * Constructor that creates a task for a report, starting the event that records it.
+         * @param action name of the action recorded for the task
+         * @param report report to run
+         * @param exclusive true if account actions must wait for the task to finish
+         * @param total number of accounts the report lists
+         */
+        ReportTask(String action, Report report, boolean exclusive, int total) {
+            this.action = action;
+            this.report = report;
+            this.exclusive = exclusive;
+            this.total = total;
+            event.begin();
+        }
+
+        /**
+         * Method that runs the report on the background thread.
+         * @return nothing
+         * @throws IOException if the report cannot be written
+         */
+        @Override
+        protected Void call() throws IOException {
+            updateProgress(-1, 1);
+            report.writeTo(this);
+            publish();
+            return null;
+        }
+
+        /**
+         * Method that adds report text to the current chunk.
+         * @param csq text to add
+         * @return this task
+         */
+        @Override
+        public Appendable append(CharSequence csq) {
+            return append(csq, 0, csq.length());
+        }
+
+        /**
+         * Method that adds part of some report text to the current chunk, publishing the chunk once it is full.
+         * @param csq text to add
+         * @param start index of the first character to add
+         * @param end index one past the last character to add
+         * @return this task
+         */
+        @Override
+        public Appendable append(CharSequence csq, int start, int end) {
+            for (int i = start; i < end; i++) {
+                if (csq.charAt(i) == '\n') {
+                    lines++;
+                }
+            }
+            chunk.append(csq, start, end);
+            if (chunk.length() >= CHUNK_SIZE) {
+                publish();
+            }
+            return this;
+        }
+
+        /**
+         * Method that adds one character of report text to the current chunk.
+         * @param c character to add
+         * @return this task
+         */
+        @Override
+        public Appendable append(char c) {
+            if (c == '\n') {
+                lines++;
+            }
+            chunk.append(c);
+            return this;
+        }
+
+        /**
+         * Method that sends the current chunk to the display box and updates the progress bar.
+         * Stops the report by throwing CancellationException if the task has been cancelled.
+         */
+        private void publish() {
+            if (isCancelled()) {
+                throw new CancellationException();
             }
-            displayBox.appendText("*list of accounts with updated balance\n" + database.print());
+            String text = chunk.toString();
+            chunk.setLength(0);
+            displayBox.appendText(text);
+            updateProgress(Math.min(lines, total), total);
         }
     }
 
-}
\ No newline at end of file
+}
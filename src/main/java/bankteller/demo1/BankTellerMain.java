@@ -11,6 +11,9 @@ import java.io.IOException;
  * @author Afsana Rahman, Mini Sinha
  */
 public class BankTellerMain extends Application {
+
+    private BankTellerController controller;
+
     /**
      * This method sets the scene of the application.
      * @param stage the stage to set the scene on
@@ -19,11 +22,22 @@ public class BankTellerMain extends Application {
     public void start(Stage stage) throws IOException {
         FXMLLoader fxmlLoader = new FXMLLoader(BankTellerMain.class.getResource("BankTellerView.fxml"));
         Scene scene = new Scene(fxmlLoader.load(), 600, 450);
+        controller = fxmlLoader.getController();
         stage.setTitle("Bank Teller");
         stage.setScene(scene);
         stage.show();
     }
 
+    /**
+     * This method closes the account journal when the application exits.
+     */
+    @Override
+    public void stop() {
+        if (controller != null) {
+            controller.shutdown();
+        }
+    }
+
     /**
      * Driver main
      */
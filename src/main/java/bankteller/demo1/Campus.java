@@ -24,4 +24,12 @@ public enum Campus {
         this.campusCode = campusCode;
         this.campus = campus;
     }
+
+    /**
+     * Method that returns the campus code corresponding to this campus.
+     * @return campus code
+     */
+    public int getCampusCode() {
+        return campusCode;
+    }
 }
\ No newline at end of file
@@ -4,7 +4,7 @@ package bankteller.demo1;
  * This class represents an open or closed Checking account with an account holder and current balance.
  * @author Afsana Rahman, Mini Sinha
  */
-public class Checking extends Account{
+public sealed class Checking extends Account permits CollegeChecking {
 
     private static final int WAIVE_FEE_BALANCE = 1000;
     private static final int MONTHLY_FEE = 25;
@@ -20,17 +20,6 @@ public class Checking extends Account{
         super(profile, balance);
     }
 
-    /**
-     * Method that converts current account information into a String.
-     * String is returned in format "accountType::FirstName LastName mm/dd/yyy::Balance $#,##0.00".
-     * If account is closed, returned String will end in "::CLOSED".
-     * @return String containing account information
-     */
-    @Override
-    public String toString() {
-        return super.toString();
-    }
-
     /**
      * Method that returns the percentage of the monthly interest on current account.
      * Annual interest on checking accounts is 0.1%.
@@ -42,22 +31,23 @@ public class Checking extends Account{
     }
 
     /**
-     * Method that returns the monthly fee on current account.
-     * Monthly fee is waived if current balance is greater than $1000. Otherwise, an account is charged $25/month.
+     * Method that returns the monthly fee current account would be charged with the given balance.
+     * Monthly fee is waived if the balance is greater than $1000. Otherwise, an account is charged $25/month.
+     * @param balanceCents balance the fee is charged on, in cents
      * @return monthly fee for current account
      */
     @Override
-    public double fee() {
-        return ((this.balance >= WAIVE_FEE_BALANCE) ? 0 : MONTHLY_FEE);
+    protected double feeFor(long balanceCents) {
+        return ((balanceCents >= WAIVE_FEE_BALANCE * CENTS_PER_DOLLAR) ? 0 : MONTHLY_FEE);
     }
 
     /**
      * Method that returns the account type of the current account.
-     * @return "Checking"
+     * @return AccountType.CHECKING
      */
     @Override
-    public String getType() {
-        return "Checking";
+    public AccountType getAccountType() {
+        return AccountType.CHECKING;
     }
 
 }
\ No newline at end of file
@@ -5,12 +5,12 @@ package bankteller.demo1;
  * College Checking accounts also must correspond to a given campus.
  * @author Afsana Rahman, Mini Sinha
  */
-public class CollegeChecking extends Checking {
+public final class CollegeChecking extends Checking {
 
     private static final double ANNUAL_INTEREST = 0.0025;
     private static final int MONTHS = 12;
 
-    private Campus campus;
+    private volatile Campus campus;
 
     /**
      * Constructor that creates an instance of a new College Checking account.
@@ -52,14 +52,15 @@ public class CollegeChecking extends Checking {
     }
 
     /**
-     * Method that converts current account information into a String.
-     * String is returned in format "accountType::FirstName LastName mm/dd/yyy::Balance $#,##0.00::CLOSED::campusName".
-     * String will only contain "CLOSED" if account is currently closed.
-     * @return String containing account information
+     * Method that writes current account information to the given StringBuilder.
+     * Format is "accountType::FirstName LastName mm/dd/yyy::Balance $#,##0.00::CLOSED::campusName".
+     * Output will only contain "CLOSED" if account is currently closed.
+     * @param sb StringBuilder the account information is written to
      */
     @Override
-    public String toString() {
-        return super.toString() + "::" + this.campus;
+    protected void appendTo(StringBuilder sb) {
+        super.appendTo(sb);
+        sb.append("::").append(this.campus);
     }
 
     /**
@@ -73,21 +74,22 @@ public class CollegeChecking extends Checking {
     }
 
     /**
-     * Method that returns the monthly fee on current account.
+     * Method that returns the monthly fee current account would be charged with the given balance.
      * College Checking accounts do not have a monthly fee.
+     * @param balanceCents balance the fee is charged on, in cents
      * @return $0
      */
     @Override
-    public double fee() {
+    protected double feeFor(long balanceCents) {
         return 0;
     }
 
     /**
      * Method that returns the account type of the current account.
-     * @return "College Checking"
+     * @return AccountType.COLLEGE_CHECKING
      */
     @Override
-    public String getType() {
-        return "College Checking";
+    public AccountType getAccountType() {
+        return AccountType.COLLEGE_CHECKING;
     }
 }
\ No newline at end of file
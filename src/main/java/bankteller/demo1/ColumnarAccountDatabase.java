@@ -0,0 +1,571 @@
+package bankteller.demo1;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * This class represents a database of bank accounts stored column by column instead of as one object per account.
+ * Balances, account types, closed and loyalty flags, Money Market withdrawal counts, and campus codes are kept in
+ *  parallel primitive arrays. Holder profiles are stored once per distinct spelling and referred to by number, and
+ *  each holder is given an identity number that indexes their accounts by type.
+ * Batch passes such as listings become linear sweeps over compact arrays.
+ * Account rules are shared with AccountDatabase: each operation loads the account's row into a reusable flyweight
+ *  Account of the right type, applies the same logic, and writes the row back.
+ * This database is meant for batch work, so it is made thread-safe with a single lock on the whole database rather
+ *  than holder lock stripes; the month-end update still runs in parallel while that lock is held.
+ * @author Afsana Rahman, Mini Sinha
+ */
+public class ColumnarAccountDatabase extends AccountDatabase {
+
+    private static final int INITIAL_CAPACITY = 16;
+    private static final int NO_ROW = -1;
+    private static final byte NO_CAMPUS = -1;
+
+    private int numAcct;
+    private long[] balances;
+    private byte[] types;
+    private boolean[] closed;
+    private byte[] loyalty;
+    private int[] withdrawals;
+    private byte[] campuses;
+    private int[] profileIds;
+
+    private Profile[] profiles;
+    private int numProfiles;
+    private HashMap<String, Integer> profileIndex;
+
+    private int numHolders;
+    private HashMap<Profile, Integer> holderIndex;
+    private int[] rowsByHolderType;
+    private int[][] rowsByType;
+    private int[] numRowsByType;
+
+    private final Account[] flyweights = newFlyweights();
+
+    /**
+     * Constructor that initializes a new, empty columnar account database.
+     */
+    public ColumnarAccountDatabase() {
+        this(INITIAL_CAPACITY);
+    }
+
+    /**
+     * Constructor that initializes a new columnar account database pre-sized for an expected number of accounts.
+     * @param expectedCapacity number of accounts the database should hold without growing
+     */
+    public ColumnarAccountDatabase(int expectedCapacity) {
+        super();
+        int capacity = Math.max(expectedCapacity, INITIAL_CAPACITY);
+        this.balances = new long[capacity];
+        this.types = new byte[capacity];
+        this.closed = new boolean[capacity];
+        this.loyalty = new byte[capacity];
+        this.withdrawals = new int[capacity];
+        this.campuses = new byte[capacity];
+        this.profileIds = new int[capacity];
+        this.profiles = new Profile[capacity];
+        this.profileIndex = new HashMap<>(hashCapacity(capacity));
+        this.holderIndex = new HashMap<>(hashCapacity(capacity));
+        this.rowsByHolderType = new int[capacity * NUM_TYPES];
+        Arrays.fill(rowsByHolderType, NO_ROW);
+        this.rowsByType = new int[NUM_TYPES][INITIAL_CAPACITY];
+        this.numRowsByType = new int[NUM_TYPES];
+    }
+
+    /**
+     * Method that returns the current number of accounts held in the database.
+     * @return number of accounts in current database
+     */
+    @Override
+    public synchronized int getNumAcct() {
+        return numAcct;
+    }
+
+    /**
+     * Method that returns a copy of every account held in the database, in their current ordering.
+     * The returned accounts are detached from the database: changing them does not change the stored columns.
+     * @return list of accounts in current database
+     */
+    @Override
+    public synchronized Account[] getAccounts() {
+        Account[] accounts = new Account[numAcct];
+        for (int row = 0; row < numAcct; row++) {
+            accounts[row] = newAccount(types[row], profiles[profileIds[row]]);
+            load(row, accounts[row]);
+        }
+        return accounts;
+    }
+
+    /**
+     * Method that returns a copy of the account held in the database with the same holder and type as the given account.
+     * The returned account is detached from the database, like the accounts returned by getAccounts().
+     * @param account account to be searched for
+     * @return copy of the account held in the database -- returns null if not found
+     */
+    @Override
+    public synchronized Account getAccount(Account account) {
+        int row = find(account);
+        if (row == NO_ROW) {
+            return null;
+        }
+        Account copy = newAccount(types[row], profiles[profileIds[row]]);
+        load(row, copy);
+        return copy;
+    }
+
+    /**
+     * Method that opens a new account or reopens an existing account.
+     * Rules are the same as AccountDatabase.open().
+     * Journaled changes are appended while the database lock is held and waited for after it is released, as in
+     *  AccountDatabase.
+     * @param account account to be opened/added to the database
+     * @return OPENED or REOPENED if the account was opened, otherwise why it was not
+     */
+    @Override
+    OperationOutcome tryOpen(Account account) {
+        if (!validAccount(account)) return OperationOutcome.INVALID;
+
+        AccountJournal journal = getJournal();
+        OperationOutcome outcome;
+        long record;
+        synchronized (this) {
+            int type = account.getAccountType().ordinal();
+            int holderId = holderId(account.getHolder());
+            int row = holderId == NO_ROW ? NO_ROW : rowsByHolderType[holderId * NUM_TYPES + type];
+            if (row != NO_ROW) {
+                if (!closed[row]) {
+                    return OperationOutcome.ALREADY_OPEN;
+                }
+                Account stored = view(row);
+                reopen(stored, account);
+                store(row, stored);
+                outcome = OperationOutcome.REOPENED;
+            } else if (holderId != NO_ROW && account.getAccountType().isChecking()
+                    && (rowsByHolderType[holderId * NUM_TYPES + CHECKING] != NO_ROW
+                    || rowsByHolderType[holderId * NUM_TYPES + COLLEGE_CHECKING] != NO_ROW)) {
+                return OperationOutcome.CHECKING_LIMIT;
+            } else {
+                if (holderId == NO_ROW) {
+                    holderId = addHolder(account.getHolder());
+                }
+                addRow(holderId, type, account);
+                outcome = OperationOutcome.OPENED;
+            }
+            record = journal == null ? 0 : journal.logOpen(account);
+        }
+        awaitJournal(journal, record);
+        return outcome;
+    }
+
+    /**
+     * Method that closes an existing open account.
+     * @param account account to be closed
+     * @return CLOSED if the account was closed, otherwise why it was not
+     */
+    @Override
+    OperationOutcome tryClose(Account account) {
+        AccountJournal journal = getJournal();
+        boolean result;
+        long record;
+        synchronized (this) {
+            int row = find(account);
+            if (row == NO_ROW) {
+                return OperationOutcome.NOT_FOUND;
+            }
+            Account stored = view(row);
+            result = closeAccount(stored);
+            store(row, stored);
+            record = journal == null ? 0 : journal.logClose(account);
+        }
+        awaitJournal(journal, record);
+        return result ? OperationOutcome.CLOSED : OperationOutcome.ALREADY_CLOSED;
+    }
+
+    /**
+     * Method that deposits a valid given amount to an existing open account.
+     * @param account account holding information of account to be deposited to and balance to be deposited
+     * @return DEPOSITED if the amount was deposited, NOT_FOUND if there is no such account
+     */
+    @Override
+    OperationOutcome tryDeposit(Account account) {
+        AccountJournal journal = getJournal();
+        long record;
+        synchronized (this) {
+            int row = find(account);
+            if (row == NO_ROW) {
+                return OperationOutcome.NOT_FOUND;
+            }
+            Account stored = view(row);
+            depositTo(stored, account);
+            store(row, stored);
+            record = journal == null ? 0 : journal.logDeposit(account);
+        }
+        awaitJournal(journal, record);
+        return OperationOutcome.DEPOSITED;
+    }
+
+    /**
+     * Method that withdraws a valid given amount from an existing open account.
+     * @param account account holding information of account to be withdrawn from and amount to be withdrawn
+     * @return WITHDRAWN if the amount was withdrawn, otherwise why it was not
+     */
+    @Override
+    OperationOutcome tryWithdraw(Account account) {
+        if (account == null) {
+            return OperationOutcome.NOT_FOUND;
+        }
+        if (account.getBalanceCents() <= 0) {
+            return OperationOutcome.INVALID;
+        }
+        AccountJournal journal = getJournal();
+        long record;
+        synchronized (this) {
+            int row = find(account);
+            if (row == NO_ROW) {
+                return OperationOutcome.NOT_FOUND;
+            }
+            Account stored = view(row);
+            boolean result = withdrawFrom(stored, account.getBalanceCents());
+            store(row, stored);
+            if (!result) {
+                return OperationOutcome.INSUFFICIENT_FUNDS;
+            }
+            record = journal == null ? 0 : journal.logWithdraw(account);
+        }
+        awaitJournal(journal, record);
+        return OperationOutcome.WITHDRAWN;
+    }
+
+    /**
+     * This method applies one month of interest and fees to every account in the database, in parallel.
+     * The database lock is held for the whole update; the parallel batches run under it.
+     * @return interest paid and fees charged per account type
+     */
+    @Override
+    public synchronized MonthEndSummary updateBalances() {
+        return super.updateBalances();
+    }
+
+    /**
+     * Method that copies every account in the database for a snapshot.
+     * The columns are copied directly while the database lock is held, and the journal is moved to a new segment at
+     *  the same moment.
+     * @return copy of every row and stored profile, with the first journal segment it does not include
+     */
+    @Override
+    synchronized AccountSnapshot captureSnapshot() {
+        AccountJournal journal = getJournal();
+        long journalSegment = journal == null ? 0 : journal.rollSegment();
+        return new AccountSnapshot(numAcct, numProfiles, Arrays.copyOf(profiles, numProfiles),
+                Arrays.copyOf(profileIds, numAcct), Arrays.copyOf(types, numAcct), Arrays.copyOf(balances, numAcct),
+                Arrays.copyOf(closed, numAcct), Arrays.copyOf(loyalty, numAcct), Arrays.copyOf(campuses, numAcct),
+                Arrays.copyOf(withdrawals, numAcct), journalSegment);
+    }
+
+    /**
+     * Method that grows every column to hold a number of accounts about to be restored.
+     * @param numAccounts number of accounts about to be restored
+     */
+    @Override
+    synchronized void ensureCapacity(int numAccounts) {
+        int capacity = numAcct + numAccounts;
+        if (capacity > balances.length) {
+            resize(capacity);
+        }
+    }
+
+    /**
+     * Method that adds an account loaded from a snapshot as a new row, exactly as it was saved.
+     * @param account account to be added to the database
+     */
+    @Override
+    synchronized void restore(Account account) {
+        int holderId = holderId(account.getHolder());
+        if (holderId == NO_ROW) {
+            holderId = addHolder(account.getHolder());
+        }
+        addRow(holderId, account.getAccountType().ordinal(), account);
+    }
+
+    /**
+     * Method that applies month-end interest and fees to a range of rows and adds them to the running totals.
+     * Each call uses its own flyweights, so ranges can be updated in parallel.
+     * @param from first row to update
+     * @param to row one past the last row to update
+     * @param totals interest per type followed by fees per type, in cents
+     */
+    @Override
+    void updateBalances(int from, int to, long[] totals) {
+        Account[] rangeFlyweights = newFlyweights();
+        for (int row = from; row < to; row++) {
+            Account account = view(row, rangeFlyweights);
+            applyMonthEnd(account, totals);
+            store(row, account);
+        }
+    }
+
+    /**
+     * This method streams one page of accounts in their current ordering to the given output, one account per line.
+     * @param out destination for the page
+     * @param offset index of the first account on the page
+     * @param limit maximum number of accounts on the page
+     * @return number of accounts written
+     * @throws IOException if the destination cannot be written to
+     */
+    @Override
+    public synchronized int printPage(Appendable out, int offset, int limit) throws IOException {
+        StringBuilder line = new StringBuilder();
+        int end = pageEnd(offset, limit);
+        for (int row = offset; row < end; row++) {
+            line.setLength(0);
+            view(row).appendTo(line);
+            out.append(line.append('\n'));
+        }
+        return Math.max(end - offset, 0);
+    }
+
+    /**
+     * This method streams one page of accounts and their monthly fees/interest to the given output.
+     * @param out destination for the page
+     * @param offset index of the first account on the page
+     * @param limit maximum number of accounts on the page
+     * @return number of accounts written
+     * @throws IOException if the destination cannot be written to
+     */
+    @Override
+    public synchronized int printFeeAndInterestPage(Appendable out, int offset, int limit) throws IOException {
+        StringBuilder line = new StringBuilder();
+        int end = pageEnd(offset, limit);
+        for (int row = offset; row < end; row++) {
+            Account account = view(row);
+            line.setLength(0);
+            account.appendTo(line);
+            line.append("::fee $");
+            MoneyFormat.appendCents(line, account.feeCents());
+            line.append("::monthly interest $");
+            MoneyFormat.appendCents(line, account.monthlyInterestCents());
+            out.append(line.append('\n'));
+        }
+        return Math.max(end - offset, 0);
+    }
+
+    /**
+     * This method streams one page of the accounts ordered by account type to the given output, one account per line.
+     * Rows are listed in per-type row lists kept as accounts are opened, so the stored ordering is left unchanged.
+     * @param out destination for the page
+     * @param offset position of the first account on the page, in by-type order
+     * @param limit maximum number of accounts on the page
+     * @return number of accounts written
+     * @throws IOException if the destination cannot be written to
+     */
+    @Override
+    public synchronized int printByAccountTypePage(Appendable out, int offset, int limit) throws IOException {
+        StringBuilder line = new StringBuilder();
+        int end = pageEnd(offset, limit);
+        int listStart = 0;
+        for (int type = 0; type < NUM_TYPES; type++) {
+            int from = Math.max(offset - listStart, 0);
+            int to = Math.min(end - listStart, numRowsByType[type]);
+            for (int i = from; i < to; i++) {
+                line.setLength(0);
+                view(rowsByType[type][i]).appendTo(line);
+                out.append(line.append('\n'));
+            }
+            listStart += numRowsByType[type];
+        }
+        return Math.max(end - offset, 0);
+    }
+
+    /**
+     * Helper method that returns the row of the account with the same holder and type as the given account.
+     * @param account account to be searched for
+     * @return row of the account -- NO_ROW if not found
+     */
+    private int find(Account account) {
+        if (account == null) {
+            return NO_ROW;
+        }
+        int holderId = holderId(account.getHolder());
+        if (holderId == NO_ROW) {
+            return NO_ROW;
+        }
+        return rowsByHolderType[holderId * NUM_TYPES + account.getAccountType().ordinal()];
+    }
+
+    /**
+     * Helper method that returns the number assigned to a holder.
+     * @param holder account holder
+     * @return holder number -- NO_ROW if the holder has no accounts
+     */
+    private int holderId(Profile holder) {
+        Integer holderId = holderIndex.get(holder);
+        return holderId == null ? NO_ROW : holderId;
+    }
+
+    /**
+     * Helper method that assigns the next holder number to a new holder.
+     * @param holder account holder
+     * @return holder number
+     */
+    private int addHolder(Profile holder) {
+        if ((numHolders + 1) * NUM_TYPES > rowsByHolderType.length) {
+            int oldLength = rowsByHolderType.length;
+            rowsByHolderType = Arrays.copyOf(rowsByHolderType, oldLength * 2);
+            Arrays.fill(rowsByHolderType, oldLength, rowsByHolderType.length, NO_ROW);
+        }
+        holderIndex.put(holder, numHolders);
+        return numHolders++;
+    }
+
+    /**
+     * Helper method that returns the number of a stored profile, storing it if this spelling has not been seen.
+     * Holders are matched ignoring case, but each account keeps the spelling it was opened with for listings.
+     * @param holder account holder as entered when the account was opened
+     * @return profile number
+     */
+    private int profileId(Profile holder) {
+        String spelling = holder.toString();
+        Integer profileId = profileIndex.get(spelling);
+        if (profileId != null) {
+            return profileId;
+        }
+        if (numProfiles == profiles.length) {
+            profiles = Arrays.copyOf(profiles, profiles.length * 2);
+        }
+        profiles[numProfiles] = holder;
+        profileIndex.put(spelling, numProfiles);
+        return numProfiles++;
+    }
+
+    /**
+     * Helper method that appends a new account as the last row of every column, growing the columns if full.
+     * @param holderId holder number
+     * @param type account type index
+     * @param account account being opened
+     */
+    private void addRow(int holderId, int type, Account account) {
+        if (numAcct == balances.length) {
+            resize(balances.length * 2);
+        }
+        int row = numAcct;
+        profileIds[row] = profileId(account.getHolder());
+        types[row] = (byte) type;
+        store(row, account);
+        rowsByHolderType[holderId * NUM_TYPES + type] = row;
+        if (numRowsByType[type] == rowsByType[type].length) {
+            rowsByType[type] = Arrays.copyOf(rowsByType[type], rowsByType[type].length * 2);
+        }
+        rowsByType[type][numRowsByType[type]++] = row;
+        numAcct++;
+    }
+
+    /**
+     * Helper method that copies every column into arrays of a new capacity.
+     * @param capacity number of rows the columns should hold
+     */
+    private void resize(int capacity) {
+        balances = Arrays.copyOf(balances, capacity);
+        types = Arrays.copyOf(types, capacity);
+        closed = Arrays.copyOf(closed, capacity);
+        loyalty = Arrays.copyOf(loyalty, capacity);
+        withdrawals = Arrays.copyOf(withdrawals, capacity);
+        campuses = Arrays.copyOf(campuses, capacity);
+        profileIds = Arrays.copyOf(profileIds, capacity);
+    }
+
+    /**
+     * Helper method that loads a row into the reusable flyweight account of its type.
+     * The flyweight is only valid until the next row is viewed.
+     * @param row row to be viewed
+     * @return flyweight account holding the row's values
+     */
+    private Account view(int row) {
+        return view(row, flyweights);
+    }
+
+    /**
+     * Helper method that loads a row into the flyweight account of its type from the given set of flyweights.
+     * @param row row to be viewed
+     * @param flyweights one reusable account per account type
+     * @return flyweight account holding the row's values
+     */
+    private Account view(int row, Account[] flyweights) {
+        Account account = flyweights[types[row]];
+        account.holder = profiles[profileIds[row]];
+        load(row, account);
+        return account;
+    }
+
+    /**
+     * Helper method that creates one reusable flyweight account per account type.
+     * @return flyweights indexed by account type
+     */
+    private static Account[] newFlyweights() {
+        Account[] flyweights = new Account[NUM_TYPES];
+        for (int type = 0; type < NUM_TYPES; type++) {
+            flyweights[type] = newAccount(type, null);
+        }
+        return flyweights;
+    }
+
+    /**
+     * Helper method that copies the values of a row into an account of the row's type.
+     * @param row row to be copied
+     * @param account account receiving the values
+     */
+    private void load(int row, Account account) {
+        account.balanceCents = balances[row];
+        account.closed = closed[row];
+        if (account instanceof Savings) {
+            ((Savings) account).changeLoyalty(loyalty[row]);
+        }
+        if (account instanceof MoneyMarket) {
+            ((MoneyMarket) account).setWithdrawals(withdrawals[row]);
+        }
+        if (account instanceof CollegeChecking) {
+            byte campus = campuses[row];
+            ((CollegeChecking) account).changeCampus(campus == NO_CAMPUS ? null : Campus.values()[campus]);
+        }
+    }
+
+    /**
+     * Helper method that writes the values of an account into a row.
+     * @param row row to be written
+     * @param account account holding the values
+     */
+    private void store(int row, Account account) {
+        balances[row] = account.balanceCents;
+        closed[row] = account.closed;
+        if (account instanceof Savings) {
+            loyalty[row] = (byte) ((Savings) account).getLoyal();
+        }
+        if (account instanceof MoneyMarket) {
+            withdrawals[row] = ((MoneyMarket) account).getWithdrawals();
+        }
+        if (account instanceof CollegeChecking) {
+            Campus campus = ((CollegeChecking) account).getCampus();
+            campuses[row] = campus == null ? NO_CAMPUS : (byte) campus.getCampusCode();
+        }
+    }
+
+    /**
+     * Helper method that creates an empty account of the given type, used for flyweights and detached copies.
+     * @param type account type index
+     * @param holder account holder
+     * @return new account of the given type with a $0 balance
+     */
+    private static Account newAccount(int type, Profile holder) {
+        switch (type) {
+            case CHECKING:
+                return new Checking(holder, 0);
+            case COLLEGE_CHECKING:
+                return new CollegeChecking(holder, 0, NO_CAMPUS);
+            case MONEY_MARKET:
+                return new MoneyMarket(holder, 0);
+            default:
+                return new Savings(holder, 0, 0);
+        }
+    }
+
+}
@@ -0,0 +1,162 @@
+package bankteller.demo1;
+
+/**
+ * This class splits one Bank Teller command line into its whitespace-separated tokens.
+ * It scans the characters of the line directly instead of using a regular expression or String.split(), and one
+ *  tokenizer can be reset to each line of a file in turn, so reading a command allocates only the tokens it keeps.
+ * Dates of birth and codes are read straight from the characters of their tokens, without creating Strings.
+ * @author Afsana Rahman, Mini Sinha
+ */
+public class CommandTokenizer {
+
+    private static final int NOT_A_NUMBER = -1;
+
+    private CharSequence line;
+    private int position;
+    private int end;
+
+    /**
+     * Constructor that creates a tokenizer with no line to read.
+     */
+    public CommandTokenizer() {
+        reset("");
+    }
+
+    /**
+     * Constructor that creates a tokenizer reading the given line.
+     * @param line command line
+     */
+    public CommandTokenizer(CharSequence line) {
+        reset(line);
+    }
+
+    /**
+     * Method that starts reading a new line from its first token.
+     * @param line command line
+     * @return this tokenizer
+     */
+    public CommandTokenizer reset(CharSequence line) {
+        this.line = line;
+        this.position = 0;
+        this.end = line.length();
+        return this;
+    }
+
+    /**
+     * Method that checks whether the line has another token.
+     * @return true if a token remains, false otherwise
+     */
+    public boolean hasMoreTokens() {
+        skipWhitespace();
+        return position < end;
+    }
+
+    /**
+     * Method that counts the tokens left on the line without reading them.
+     * @return number of tokens remaining
+     */
+    public int countTokens() {
+        int count = 0;
+        boolean inToken = false;
+        for (int i = position; i < end; i++) {
+            boolean whitespace = isWhitespace(line.charAt(i));
+            if (!whitespace && !inToken) {
+                count++;
+            }
+            inToken = !whitespace;
+        }
+        return count;
+    }
+
+    /**
+     * Method that returns the next token.
+     * @return next token -- null if none remain
+     */
+    public String nextToken() {
+        skipWhitespace();
+        if (position == end) {
+            return null;
+        }
+        int start = position;
+        skipToken();
+        return line.subSequence(start, position).toString();
+    }
+
+    /**
+     * Method that reads the next token as a date in "mm/dd/yyyy" format.
+     * The date is not checked against the calendar; use Date.isValid() for that.
+     * @return date read -- null if the token is missing or is not three numbers separated by "/"
+     */
+    public Date nextDate() {
+        skipWhitespace();
+        int start = position;
+        skipToken();
+        return start == position ? null : Date.parse(line, start, position);
+    }
+
+    /**
+     * Method that reads the next token as a whole number, such as a campus code or loyalty.
+     * @return number read -- -1 if the token is missing or is not a whole number
+     */
+    public int nextCode() {
+        skipWhitespace();
+        int code = readNumber();
+        if (code == NOT_A_NUMBER) {
+            skipToken();
+        }
+        return code;
+    }
+
+    /**
+     * Helper method that reads the digits of a number that makes up the rest of the current token.
+     * @return number read -- NOT_A_NUMBER if there are no digits, a character other than a digit, or more digits
+     *  than fit in an int
+     */
+    private int readNumber() {
+        int value = 0;
+        int digits = 0;
+        while (position < end) {
+            char c = line.charAt(position);
+            if (c >= '0' && c <= '9') {
+                if (value > (Integer.MAX_VALUE - (c - '0')) / 10) {
+                    return NOT_A_NUMBER;
+                }
+                value = value * 10 + (c - '0');
+                digits++;
+                position++;
+            } else if (isWhitespace(c)) {
+                break;
+            } else {
+                return NOT_A_NUMBER;
+            }
+        }
+        return digits == 0 ? NOT_A_NUMBER : value;
+    }
+
+    /**
+     * Helper method that moves past any whitespace before the next token.
+     */
+    private void skipWhitespace() {
+        while (position < end && isWhitespace(line.charAt(position))) {
+            position++;
+        }
+    }
+
+    /**
+     * Helper method that moves past the rest of the current token.
+     */
+    private void skipToken() {
+        while (position < end && !isWhitespace(line.charAt(position))) {
+            position++;
+        }
+    }
+
+    /**
+     * Helper method that checks whether a character separates tokens, as StringTokenizer's default delimiters do.
+     * @param c character to check
+     * @return true for a space, tab, newline, carriage return, or form feed
+     */
+    private static boolean isWhitespace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\r' || c == '\f';
+    }
+}
@@ -1,17 +1,25 @@
 package bankteller.demo1;
 
-import java.util.Calendar;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.ZoneId;
 
 /**
  * This class represents a date containing the month, day, and year.
  * Dates are formatted as "mm/ddd/yyyy".
+ * Dates are read with a parser that scans the characters directly, without splitting the text or using exceptions
+ *  to reject it, and today's date is cached until the next midnight, so validating a date of birth does not create
+ *  a calendar.
+ * Each date also keeps its packed form, the number yyyymmdd, so dates compare with a single int comparison, hash to
+ *  that number, and can be stored in int arrays with toPackedInt() and fromPackedInt().
  * @author Afsana Rahman, Mini Sinha
  */
 public class Date implements Comparable<Date> {
 
-    private int year;
-    private int month;
-    private int day;
+    private final int year;
+    private final int month;
+    private final int day;
+    private final int packed;
 
     private static final int QUADRENNIAL = 4;
     private static final int CENTENNIAL = 100;
@@ -37,26 +45,167 @@ public class Date implements Comparable<Date> {
     private static final int DEC = 12;
 
     private static final int EARLIER = -1;
+    private static final int NOT_A_NUMBER = -1;
+
+    private static final int NOT_PACKED = -1;
+    private static final int MONTH_SHIFT = 100;
+    private static final int YEAR_SHIFT = 10000;
+    private static final int MAX_PACKED_YEAR = (Integer.MAX_VALUE - 9999) / YEAR_SHIFT;
+
+    private static volatile Clock clock = Clock.systemDefaultZone();
+    private static volatile Today today = new Today();
 
     /**
      * Constructor that returns instance of given specific date.
      * @param date the date in format mm/dd/yyyy
      */
     public Date(String date) {
-        String[] tokens = date.split("/");
-        this.month = Integer.parseInt(tokens[0]);
-        this.day = Integer.parseInt(tokens[1]);
-        this.year = Integer.parseInt(tokens[2]);
+        Date parsed = parse(date);
+        if (parsed == null) {
+            throw new NumberFormatException("Not a date in mm/dd/yyyy format: \"" + date + "\"");
+        }
+        this.month = parsed.month;
+        this.day = parsed.day;
+        this.year = parsed.year;
+        this.packed = parsed.packed;
+    }
+
+    /**
+     * Constructor that returns instance of given specific date from its parts.
+     * @param month month of the year, 1 to 12
+     * @param day day of the month
+     * @param year year
+     */
+    Date(int month, int day, int year) {
+        this.month = month;
+        this.day = day;
+        this.year = year;
+        this.packed = pack(month, day, year);
+    }
+
+    /**
+     * Helper method that packs the parts of a date into the number yyyymmdd.
+     * Packed numbers are ordered the same way as the dates they stand for, as long as each part fits in its digits.
+     * @param month month of the year
+     * @param day day of the month
+     * @param year year
+     * @return packed date -- NOT_PACKED if a part is negative, the month or day has more than two digits, or the
+     *  year is too large to pack
+     */
+    private static int pack(int month, int day, int year) {
+        if (month < 0 || month >= MONTH_SHIFT || day < 0 || day >= MONTH_SHIFT || year < 0 || year > MAX_PACKED_YEAR) {
+            return NOT_PACKED;
+        }
+        return year * YEAR_SHIFT + month * MONTH_SHIFT + day;
+    }
+
+    /**
+     * Method that returns a date from its packed yyyymmdd form.
+     * @param packed date packed as yyyymmdd, as returned by toPackedInt()
+     * @return date with the packed month, day, and year
+     */
+    public static Date fromPackedInt(int packed) {
+        return new Date(packed / MONTH_SHIFT % MONTH_SHIFT, packed % MONTH_SHIFT, packed / YEAR_SHIFT);
+    }
+
+    /**
+     * Method that returns the date packed into one int as yyyymmdd, for storing dates in arrays and indexes.
+     * Every valid date with a year from 0 to 214747 can be packed, and packed dates are ordered like the dates.
+     * @return packed date
+     * @throws IllegalStateException if the date has a negative part, a month or day with more than two digits, or a
+     *  year too large to pack
+     */
+    public int toPackedInt() {
+        if (this.packed == NOT_PACKED) {
+            throw new IllegalStateException("Date " + this + " cannot be packed");
+        }
+        return this.packed;
     }
 
     /**
      * Constructor that returns instance of current (today's) date.
      */
     public Date() {
-        Calendar today = Calendar.getInstance();
-        this.year = today.get(Calendar.YEAR);
-        this.month = today.get(Calendar.MONTH);
-        this.day = today.get(Calendar.DATE);
+        Date current = today();
+        this.year = current.year;
+        this.month = current.month;
+        this.day = current.day;
+        this.packed = current.packed;
+    }
+
+    /**
+     * Method that returns today's date in the system time zone.
+     * The date is cached and only looked up again once the clock passes midnight, so calling this for every
+     *  validation costs a clock read rather than a new calendar.
+     * @return today's date, shared by every caller until midnight -- callers must not change it
+     */
+    public static Date today() {
+        Today current = today;
+        if (clock.millis() >= current.nextMidnightMillis) {
+            current = new Today();
+            today = current;
+        }
+        return current.date;
+    }
+
+    /**
+     * Method that sets the clock today's date is read from and drops the cached date, so tests can move the clock
+     *  across midnight.
+     * @param source clock to read the time and time zone from
+     */
+    static void setClock(Clock source) {
+        clock = source;
+        today = new Today();
+    }
+
+    /**
+     * Method that reads a date in "mm/dd/yyyy" format.
+     * The date is not checked against the calendar; use isValid() for that.
+     * @param text text of the date
+     * @return date read -- null if the text is not three numbers separated by "/"
+     */
+    public static Date parse(CharSequence text) {
+        return parse(text, 0, text.length());
+    }
+
+    /**
+     * Method that reads a date in "mm/dd/yyyy" format from part of a line of text, without creating any objects
+     *  other than the date itself.
+     * @param text text holding the date
+     * @param start index of the first character of the date
+     * @param end index one past the last character of the date
+     * @return date read -- null if the characters are not three numbers separated by "/"
+     */
+    public static Date parse(CharSequence text, int start, int end) {
+        int month = 0;
+        int day = 0;
+        int value = NOT_A_NUMBER;
+        int part = 0;
+        for (int i = start; i < end; i++) {
+            char c = text.charAt(i);
+            if (c >= '0' && c <= '9') {
+                if (value == NOT_A_NUMBER) {
+                    value = 0;
+                } else if (value > (Integer.MAX_VALUE - (c - '0')) / 10) {
+                    return null;
+                }
+                value = value * 10 + (c - '0');
+            } else if (c == '/' && value != NOT_A_NUMBER && part < 2) {
+                if (part == 0) {
+                    month = value;
+                } else {
+                    day = value;
+                }
+                part++;
+                value = NOT_A_NUMBER;
+            } else {
+                return null;
+            }
+        }
+        if (part != 2 || value == NOT_A_NUMBER) {
+            return null;
+        }
+        return new Date(month, day, value);
     }
 
     /**
@@ -89,13 +238,26 @@ public class Date implements Comparable<Date> {
         return this.month + "/" + this.day + "/" + this.year;
     }
 
+    /**
+     * Method that writes the date to the given StringBuilder in the same format as toString().
+     * @param sb StringBuilder the date is written to
+     */
+    void appendTo(StringBuilder sb) {
+        sb.append(this.month).append('/').append(this.day).append('/').append(this.year);
+    }
+
     /**
      * Compares this date with specified date.
+     * Dates that can be packed are compared by their packed form in one step; the parts of any other date are
+     *  compared one by one.
      * @param date another date that is being compared to this instance's date
      * @return negative if instance date is earlier, positive if later, zero if same date
      */
     @Override
     public int compareTo(Date date) {
+        if ((this.packed | date.packed) >= 0) {
+            return Integer.compare(this.packed, date.packed);
+        }
         if(this.year < date.year) {
             return EARLIER;
         } else if(this.year > date.year) {
@@ -117,6 +279,33 @@ public class Date implements Comparable<Date> {
         }
     }
 
+    /**
+     * Checks if current instance of date is the same calendar date as given date.
+     * @param obj object being compared
+     * @return true if the month, day, and year are all equal, false otherwise
+     */
+    @Override
+    public boolean equals(Object obj) {
+        if(obj == this) {
+            return true;
+        } else if(!(obj instanceof Date)) {
+            return false;
+        }
+        return compareTo((Date) obj) == 0;
+    }
+
+    /**
+     * Method that returns a hash code consistent with equals, so dates can be used as hash keys.
+     * @return hash code of the date
+     */
+    @Override
+    public int hashCode() {
+        if (this.packed != NOT_PACKED) {
+            return this.packed;
+        }
+        return (this.year * 31 + this.month) * 31 + this.day;
+    }
+
     /**
      * Helper method that checks if this date is on a valid day in given month.
      * @return true if date is possible, false if not possible
@@ -168,4 +357,24 @@ public class Date implements Comparable<Date> {
         return this.year % QUADRENNIAL == 0;
     }
 
+    /**
+     * This class holds today's date along with the time it stops being today.
+     */
+    private static class Today {
+
+        private final Date date;
+        private final long nextMidnightMillis;
+
+        /**
+         * Constructor that looks up today's date in the time zone of the clock.
+         */
+        Today() {
+            Clock source = clock;
+            ZoneId zone = source.getZone();
+            LocalDate now = LocalDate.now(source);
+            this.date = new Date(now.getMonthValue(), now.getDayOfMonth(), now.getYear());
+            this.nextMidnightMillis = now.plusDays(1).atStartOfDay(zone).toInstant().toEpochMilli();
+        }
+    }
+
 }
\ No newline at end of file
@@ -0,0 +1,146 @@
+package bankteller.demo1;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * This class records a distribution of latencies in nanoseconds, in the manner of an HDR histogram.
+ * Each power of two is split into 8 buckets, so every recorded value is kept to within 12.5% whatever its size,
+ *  from a few nanoseconds to minutes, in a fixed 488 buckets. Recording is one increment of a bucket and never
+ *  allocates. Buckets are striped across several arrays picked by thread, so threads recording at once rarely
+ *  update the same counter, and the stripes are added together when the histogram is read.
+ * @author Afsana Rahman, Mini Sinha
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKETS = (Long.SIZE - SUB_BUCKET_BITS) * SUB_BUCKETS;
+    private static final int MAX_STRIPES = 16;
+    private static final double PERCENT = 100.0;
+
+    private final AtomicLongArray counts;
+    private final int stripeMask;
+    private final LongAdder totalNanos = new LongAdder();
+    private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+    /**
+     * Constructor that creates an empty histogram with one stripe per processor, up to 16.
+     */
+    public LatencyHistogram() {
+        int stripes = Integer.highestOneBit(Math.min(Runtime.getRuntime().availableProcessors(), MAX_STRIPES));
+        this.stripeMask = stripes - 1;
+        this.counts = new AtomicLongArray(stripes * BUCKETS);
+    }
+
+    /**
+     * Method that records one latency.
+     * @param nanos latency in nanoseconds -- negative values are recorded as 0
+     */
+    public void record(long nanos) {
+        long value = Math.max(nanos, 0);
+        int stripe = ThreadLocalRandom.current().nextInt() & stripeMask;
+        counts.getAndIncrement(stripe * BUCKETS + bucketOf(value));
+        totalNanos.add(value);
+        maxNanos.accumulate(value);
+    }
+
+    /**
+     * Method that returns the number of latencies recorded.
+     * @return number of latencies
+     */
+    public long getCount() {
+        long count = 0;
+        for (long bucket : merged()) {
+            count += bucket;
+        }
+        return count;
+    }
+
+    /**
+     * Method that returns the mean of the latencies recorded.
+     * @return mean latency in nanoseconds -- 0 if nothing was recorded
+     */
+    public long getMeanNanos() {
+        long count = getCount();
+        return count == 0 ? 0 : totalNanos.sum() / count;
+    }
+
+    /**
+     * Method that returns the largest latency recorded, exactly.
+     * @return largest latency in nanoseconds -- 0 if nothing was recorded
+     */
+    public long getMaxNanos() {
+        return maxNanos.get();
+    }
+
+    /**
+     * Method that returns the latency that the given percentage of recorded latencies do not exceed.
+     * The result is the highest value of the bucket holding that latency, so it overstates it by at most 12.5%.
+     * @param percentile percentage from 0 to 100, such as 99.9
+     * @return latency in nanoseconds -- 0 if nothing was recorded
+     */
+    public long getPercentileNanos(double percentile) {
+        long[] buckets = merged();
+        long count = 0;
+        for (long bucket : buckets) {
+            count += bucket;
+        }
+        if (count == 0) {
+            return 0;
+        }
+        long rank = Math.max((long) Math.ceil(Math.min(percentile, PERCENT) / PERCENT * count), 1);
+        long seen = 0;
+        for (int bucket = 0; bucket < BUCKETS; bucket++) {
+            seen += buckets[bucket];
+            if (seen >= rank) {
+                return Math.min(highestValueOf(bucket), getMaxNanos());
+            }
+        }
+        return getMaxNanos();
+    }
+
+    /**
+     * Helper method that adds the stripes of every bucket together.
+     * @return count of each bucket
+     */
+    private long[] merged() {
+        long[] buckets = new long[BUCKETS];
+        for (int i = 0; i < counts.length(); i++) {
+            buckets[i % BUCKETS] += counts.get(i);
+        }
+        return buckets;
+    }
+
+    /**
+     * Helper method that returns the bucket a value is counted in.
+     * Values below 8 have a bucket each; above that, the top bit picks the power of two and the next three bits
+     *  pick one of its 8 buckets.
+     * @param value non-negative value
+     * @return bucket index
+     */
+    static int bucketOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = Long.SIZE - 1 - Long.numberOfLeadingZeros(value);
+        int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    /**
+     * Helper method that returns the highest value counted in a bucket.
+     * @param bucket bucket index
+     * @return highest value of the bucket
+     */
+    static long highestValueOf(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int exponent = bucket / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        long lowest = (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << (exponent - SUB_BUCKET_BITS);
+        return lowest + (1L << (exponent - SUB_BUCKET_BITS)) - 1;
+    }
+}
@@ -0,0 +1,177 @@
+package bankteller.demo1;
+
+import java.text.DecimalFormat;
+
+/**
+ * This class formats money amounts in the "#,##0.00" pattern used throughout the Bank Teller.
+ * Amounts are rounded half-even on their exact binary value and written straight into a StringBuilder, so the
+ *  output matches DecimalFormat without creating a formatter or any intermediate Strings.
+ * Dollar amounts are converted to whole cents with the same rounding, so stored balances match what is displayed.
+ * All methods are static and hold no shared state, so they are safe to call from any thread.
+ * @author Afsana Rahman, Mini Sinha
+ */
+public final class MoneyFormat {
+
+    /**
+     * Largest amount of money, in dollars, accepted as an initial deposit, deposit, or withdrawal.
+     */
+    public static final double MAX_AMOUNT = 1e12;
+
+    private static final int CENTS_PER_DOLLAR = 100;
+    private static final int GROUPING_SIZE = 3;
+
+    private static final double FAST_PATH_LIMIT = 1e12;
+    private static final double CENTS_LIMIT = 0x1p63;
+
+    private static final int MANTISSA_BITS = 52;
+    private static final long MANTISSA_MASK = (1L << MANTISSA_BITS) - 1;
+    private static final int EXPONENT_MASK = 0x7ff;
+    private static final int EXPONENT_BIAS = 1075;
+    private static final int SUBNORMAL_EXPONENT = -1074;
+    private static final int MAX_SHIFT = 63;
+
+    private static final ThreadLocal<DecimalFormat> FALLBACK = ThreadLocal.withInitial(() -> {
+        DecimalFormat decimalFormat = new DecimalFormat("#,##0.00");
+        decimalFormat.setGroupingSize(GROUPING_SIZE);
+        return decimalFormat;
+    });
+
+    /**
+     * This class only holds static helpers and is never instantiated.
+     */
+    private MoneyFormat() {
+    }
+
+    /**
+     * Method that formats an amount of money into a new String in "#,##0.00" format.
+     * @param amount amount of money in dollars
+     * @return formatted amount
+     */
+    public static String format(double amount) {
+        StringBuilder formatted = new StringBuilder();
+        append(formatted, amount);
+        return formatted.toString();
+    }
+
+    /**
+     * Method that appends an amount of money in "#,##0.00" format to the given StringBuilder.
+     * Negative amounts, including those that round to zero, are written with a leading "-" like DecimalFormat does.
+     * @param sb StringBuilder the amount is written to
+     * @param amount amount of money in dollars
+     * @return the given StringBuilder
+     */
+    public static StringBuilder append(StringBuilder sb, double amount) {
+        double magnitude = Math.abs(amount);
+        if (!(magnitude < FAST_PATH_LIMIT)) { // also catches NaN
+            return sb.append(FALLBACK.get().format(amount));
+        }
+        if (Double.doubleToRawLongBits(amount) < 0) {
+            sb.append('-');
+        }
+        return appendCents(sb, roundToCents(magnitude));
+    }
+
+    /**
+     * Method that checks if an amount of money entered by a teller is a number no larger than MAX_AMOUNT.
+     * @param amount amount of money in dollars
+     * @return true if the amount is finite and at most MAX_AMOUNT either way, false otherwise
+     */
+    public static boolean isValidAmount(double amount) {
+        return Math.abs(amount) <= MAX_AMOUNT; // false for NaN
+    }
+
+    /**
+     * Method that converts an amount of money in dollars to whole cents, rounded half-even like the displayed amount.
+     * @param amount amount of money in dollars
+     * @return amount in cents
+     * @throws ArithmeticException if the amount is not a number or does not fit in a long number of cents
+     */
+    public static long toCents(double amount) {
+        double magnitude = Math.abs(amount);
+        if (!(magnitude < FAST_PATH_LIMIT)) {
+            double cents = amount * CENTS_PER_DOLLAR;
+            if (!(Math.abs(cents) < CENTS_LIMIT)) { // also catches NaN and infinity
+                throw new ArithmeticException("Amount out of range: " + amount);
+            }
+            return Math.round(cents);
+        }
+        long cents = roundToCents(magnitude);
+        return amount < 0 ? -cents : cents;
+    }
+
+    /**
+     * Method that appends an amount given in whole cents in "#,##0.00" format to the given StringBuilder.
+     * @param sb StringBuilder the amount is written to
+     * @param cents amount of money in cents
+     * @return the given StringBuilder
+     */
+    public static StringBuilder appendCents(StringBuilder sb, long cents) {
+        if (cents < 0) {
+            sb.append('-');
+        }
+        long dollars = Math.abs(cents / CENTS_PER_DOLLAR);
+        int remainder = (int) Math.abs(cents % CENTS_PER_DOLLAR);
+
+        appendGrouped(sb, dollars);
+        sb.append('.');
+        sb.append((char) ('0' + remainder / 10));
+        sb.append((char) ('0' + remainder % 10));
+        return sb;
+    }
+
+    /**
+     * Helper method that writes a whole number of dollars with a comma between every group of three digits.
+     * @param sb StringBuilder the number is written to
+     * @param dollars non-negative number of dollars
+     */
+    private static void appendGrouped(StringBuilder sb, long dollars) {
+        if (dollars < 1000) {
+            sb.append(dollars);
+            return;
+        }
+        appendGrouped(sb, dollars / 1000);
+        int group = (int) (dollars % 1000);
+        sb.append(',');
+        sb.append((char) ('0' + group / 100));
+        sb.append((char) ('0' + group / 10 % 10));
+        sb.append((char) ('0' + group % 10));
+    }
+
+    /**
+     * Helper method that rounds a non-negative amount to whole cents, half-even on its exact binary value.
+     * The double is split into its integer mantissa and binary exponent so the comparison with the halfway point is
+     *  done in exact integer arithmetic, the same way DecimalFormat rounds.
+     * @param magnitude non-negative amount in dollars, less than FAST_PATH_LIMIT
+     * @return amount rounded to cents
+     */
+    private static long roundToCents(double magnitude) {
+        long bits = Double.doubleToRawLongBits(magnitude);
+        int biasedExponent = (int) (bits >>> MANTISSA_BITS) & EXPONENT_MASK;
+        long mantissa = bits & MANTISSA_MASK;
+        int exponent;
+        if (biasedExponent == 0) {
+            exponent = SUBNORMAL_EXPONENT;
+        } else {
+            mantissa |= 1L << MANTISSA_BITS;
+            exponent = biasedExponent - EXPONENT_BIAS;
+        }
+
+        long scaled = mantissa * CENTS_PER_DOLLAR; // below 2^60, so exact
+        if (exponent >= 0) {
+            return scaled << exponent;
+        }
+        int shift = -exponent;
+        if (shift > MAX_SHIFT) { // less than a sixteenth of a cent
+            return 0;
+        }
+
+        long cents = scaled >>> shift;
+        long remainder = scaled & ((1L << shift) - 1);
+        long half = 1L << (shift - 1);
+        if (remainder > half || (remainder == half && (cents & 1) != 0)) {
+            cents++;
+        }
+        return cents;
+    }
+
+}
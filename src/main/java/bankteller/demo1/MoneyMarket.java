@@ -1,18 +1,32 @@
 package bankteller.demo1;
 
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
 /**
  * This class represents an open or closed Money Market Savings account with an account holder and current balance.
  * @author Afsana Rahman, Mini Sinha
  */
-public class MoneyMarket extends Savings{
+public final class MoneyMarket extends Savings {
+
+    private static final VarHandle WITHDRAWALS;
 
+    static {
+        try {
+            WITHDRAWALS = MethodHandles.lookup().findVarHandle(MoneyMarket.class, "numWithdrawals", int.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private static final int LOYAL_BALANCE = 2500;
     private static final int WAIVE_FEE_BALANCE = 2500;
     private static final int MAX_WITHDRAWALS = 3;
     private static final int MONTHLY_FEE = 10;
 
     private static final double ANNUAL_INTEREST = 0.008;
 
-    private int numWithdrawals;
+    private volatile int numWithdrawals;
 
     /**
      * Constructor that creates an instance of a new Money Market Savings account.
@@ -27,22 +41,68 @@ public class MoneyMarket extends Savings{
 
     /**
      * Method that adds a withdrawal to withdrawal count when there is a withdrawal.
+     * The count is incremented atomically, so concurrent withdrawals are all counted.
      */
     public void addWithdrawals() {
-        this.numWithdrawals++;
+        WITHDRAWALS.getAndAdd(this, 1);
     }
 
     /**
-     * Method that converts current account information into a String.
-     * String is in format "accountType::FirstName LastName mm/dd/yyy::Balance $#,##0.00::CLOSED::Loyal::withdrawl: #".
-     * String will only contain "::CLOSED" if account is currently closed, and "::Loyal" only if account is LOYAL.
+     * Withdraws given number of cents from current account balance if the balance is at least that amount.
+     * A successful withdrawal is counted, and the account loses loyalty if its balance is now below $2500.
+     * The three updates are only consistent with each other and with deposits while the caller holds the lock for
+     *  the holder, as AccountDatabase does for every Money Market deposit and withdrawal.
+     * @param cents money to be subtracted in cents
+     * @return true if the amount was withdrawn, false if the balance is insufficient
+     */
+    @Override
+    public boolean withdrawCentsIfSufficient(long cents) {
+        if (!super.withdrawCentsIfSufficient(cents)) {
+            return false;
+        }
+        addWithdrawals();
+        if (this.balanceCents < LOYAL_BALANCE * CENTS_PER_DOLLAR) {
+            changeLoyalty(0);
+        }
+        return true;
+    }
+
+    /**
+     * Method that returns the number of withdrawals made from the current account.
+     * @return withdrawal count
+     */
+    public int getWithdrawals() {
+        return this.numWithdrawals;
+    }
+
+    /**
+     * Method that sets the withdrawal count, used when an account is rebuilt from stored columns.
+     * @param numWithdrawals withdrawal count
+     */
+    void setWithdrawals(int numWithdrawals) {
+        this.numWithdrawals = numWithdrawals;
+    }
+
+    /**
+     * Method that writes current account information to the given StringBuilder.
+     * Format is "Money Market Savings::FirstName LastName mm/dd/yyy::Balance $#,##0.00::CLOSED::Loyal::withdrawl: #".
+     * Output will only contain "::CLOSED" if account is currently closed, and "::Loyal" only if account is LOYAL.
      * The withdrawal count at the end is the number of withdrawals that have been made from the current account.
-     * @return String containing account information
+     * @param sb StringBuilder the account information is written to
+     */
+    @Override
+    protected void appendTo(StringBuilder sb) {
+        super.appendTo(sb);
+        sb.append("::withdrawl: ").append(this.numWithdrawals);
+    }
+
+    /**
+     * Method that returns the account type as it is shown in account listings.
+     * @return "Money Market Savings"
      */
     @Override
-    public String toString() {
-        String toString = super.toString() + "::withdrawl: " + this.numWithdrawals;
-        return toString.replace("Money Market", "Money Market Savings");
+    protected String getDisplayType() {
+        return "Money Market Savings";
     }
 
     /**
@@ -60,23 +120,25 @@ public class MoneyMarket extends Savings{
     }
 
     /**
-     * Method that returns the monthly fee on current account.
-     * Monthly fee is waived if current balance is greater than $2500 and there have been less than 3 total withdrawals
+     * Method that returns the monthly fee current account would be charged with the given balance.
+     * Monthly fee is waived if the balance is greater than $2500 and there have been less than 3 total withdrawals
      *  on the account. Otherwise, an account is charged $10/month.
+     * @param balanceCents balance the fee is charged on, in cents
      * @return monthly fee for current account
      */
     @Override
-    public double fee() {
-        return ((this.balance >= WAIVE_FEE_BALANCE && this.numWithdrawals <= MAX_WITHDRAWALS) ? 0 : MONTHLY_FEE);
+    protected double feeFor(long balanceCents) {
+        return ((balanceCents >= WAIVE_FEE_BALANCE * CENTS_PER_DOLLAR && this.numWithdrawals <= MAX_WITHDRAWALS)
+                ? 0 : MONTHLY_FEE);
     }
 
     /**
      * Method that returns the account type of the current account.
-     * @return "Money Market"
+     * @return AccountType.MONEY_MARKET
      */
     @Override
-    public String getType() {
-        return "Money Market";
+    public AccountType getAccountType() {
+        return AccountType.MONEY_MARKET;
     }
 
     /**
@@ -0,0 +1,108 @@
+package bankteller.demo1;
+
+/**
+ * This class holds the totals of one month-end balance update: interest paid and fees charged per account type.
+ * The Bank Teller's own screens list the updated balances instead of these totals; within the application the summary
+ *  supplies the account count recorded by AccountMetrics and the AccountBatch flight recorder event.
+ * @author Afsana Rahman, Mini Sinha
+ */
+public class MonthEndSummary {
+
+    private final int numAccounts;
+    private final long[] interestCents;
+    private final long[] feeCents;
+
+    /**
+     * Constructor that creates a summary from per-type totals indexed in listing order
+     *  (Checking, College Checking, Money Market, Savings).
+     * @param numAccounts number of accounts updated
+     * @param interestCents interest paid per account type, in cents
+     * @param feeCents fees charged per account type, in cents
+     */
+    MonthEndSummary(int numAccounts, long[] interestCents, long[] feeCents) {
+        this.numAccounts = numAccounts;
+        this.interestCents = interestCents;
+        this.feeCents = feeCents;
+    }
+
+    /**
+     * Method that returns the number of accounts that were updated.
+     * @return number of accounts updated
+     */
+    public int getNumAccounts() {
+        return numAccounts;
+    }
+
+    /**
+     * Method that returns the interest paid to accounts of the given type.
+     * @param type account type
+     * @return interest paid in cents
+     */
+    public long getInterestCents(AccountType type) {
+        return interestCents[type.ordinal()];
+    }
+
+    /**
+     * Method that returns the fees charged to accounts of the given type.
+     * @param type account type
+     * @return fees charged in cents
+     */
+    public long getFeeCents(AccountType type) {
+        return feeCents[type.ordinal()];
+    }
+
+    /**
+     * Method that returns the interest paid to all accounts.
+     * @return total interest paid in cents
+     */
+    public long getTotalInterestCents() {
+        long total = 0;
+        for (long cents : interestCents) {
+            total += cents;
+        }
+        return total;
+    }
+
+    /**
+     * Method that returns the fees charged to all accounts.
+     * @return total fees charged in cents
+     */
+    public long getTotalFeeCents() {
+        long total = 0;
+        for (long cents : feeCents) {
+            total += cents;
+        }
+        return total;
+    }
+
+    /**
+     * Method that converts the summary into a String with one line per account type and a line of totals.
+     * Each line is formatted as "type::interest $#,##0.00::fees $#,##0.00".
+     * @return summary in String form
+     */
+    @Override
+    public String toString() {
+        StringBuilder toString = new StringBuilder();
+        for (AccountType type : AccountType.values()) {
+            appendLine(toString, type.getName(), interestCents[type.ordinal()], feeCents[type.ordinal()]);
+        }
+        appendLine(toString, "Total", getTotalInterestCents(), getTotalFeeCents());
+        return toString.toString();
+    }
+
+    /**
+     * Helper method that writes one line of the summary.
+     * @param sb StringBuilder the line is written to
+     * @param label account type or "Total"
+     * @param interest interest paid in cents
+     * @param fees fees charged in cents
+     */
+    private static void appendLine(StringBuilder sb, String label, long interest, long fees) {
+        sb.append(label).append("::interest $");
+        MoneyFormat.appendCents(sb, interest);
+        sb.append("::fees $");
+        MoneyFormat.appendCents(sb, fees);
+        sb.append('\n');
+    }
+
+}
@@ -0,0 +1,49 @@
+package bankteller.demo1;
+
+/**
+ * This enum lists how an AccountDatabase operation can end, so metrics can count each result separately: accounts
+ *  opened apart from accounts reopened, and withdrawals rejected for insufficient funds apart from unknown accounts.
+ * @author Afsana Rahman, Mini Sinha
+ */
+public enum OperationOutcome {
+
+    OPENED(true),
+    REOPENED(true),
+    INVALID(false),
+    ALREADY_OPEN(false),
+    CHECKING_LIMIT(false),
+    CLOSED(true),
+    ALREADY_CLOSED(false),
+    DEPOSITED(true),
+    WITHDRAWN(true),
+    INSUFFICIENT_FUNDS(false),
+    NOT_FOUND(false),
+    COMPLETED(true),
+    FAILED(false);
+
+    private final boolean succeeded;
+
+    /**
+     * Constructor that creates an outcome.
+     * @param succeeded true if the operation did what was asked
+     */
+    OperationOutcome(boolean succeeded) {
+        this.succeeded = succeeded;
+    }
+
+    /**
+     * Method that checks if the operation did what was asked, which is what the database operation returns.
+     * @return true for an account opened, reopened, closed, deposited to or withdrawn from, or a completed batch
+     */
+    public boolean succeeded() {
+        return succeeded;
+    }
+
+    /**
+     * Method that returns the name of the outcome as shown in metrics, such as "insufficient-funds".
+     * @return lower-case name of the outcome
+     */
+    public String label() {
+        return name().toLowerCase().replace('_', '-');
+    }
+}
@@ -0,0 +1,254 @@
+package bankteller.demo1;
+
+import javafx.animation.AnimationTimer;
+import javafx.collections.ObservableListBase;
+import javafx.scene.control.ListView;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * This class displays teller output in a virtualized ListView that keeps only the most recent lines.
+ * Text can be appended from any thread. The appending thread splits it into lines and keeps only as many waiting
+ *  lines as the view can hold, which are shown at most once per frame. A bulk operation that appends many lines
+ *  therefore takes bounded memory, and each frame only lays out the rows that are visible.
+ * Every line is also written to a session log file by the appending thread, so the full output can still be saved
+ *  after old lines have scrolled out of the view.
+ * @author Afsana Rahman, Mini Sinha
+ */
+public class OutputConsole {
+
+    private static final int DEFAULT_MAX_LINES = 10000;
+
+    private final ListView<String> view;
+    private final LineBuffer lines;
+    private final int maxLines;
+    private final AnimationTimer timer;
+
+    // lines waiting for the next frame, oldest first; also guards partialLine and the log
+    private final ArrayDeque<String> pending = new ArrayDeque<>();
+    private final StringBuilder partialLine = new StringBuilder();
+
+    private Path logFile;
+    private Writer log;
+
+    /**
+     * Constructor that creates a console keeping the number of lines set by the "bankteller.console.lines" system
+     *  property, or 10000 lines if it is not set.
+     * @param view ListView the output is shown in
+     */
+    public OutputConsole(ListView<String> view) {
+        this(view, Integer.getInteger("bankteller.console.lines", DEFAULT_MAX_LINES));
+    }
+
+    /**
+     * Constructor that creates a console keeping up to the given number of lines.
+     * Must be called on the JavaFX application thread.
+     * @param view ListView the output is shown in
+     * @param maxLines number of most recent lines kept in the view
+     */
+    public OutputConsole(ListView<String> view, int maxLines) {
+        this.view = view;
+        this.maxLines = Math.max(maxLines, 1);
+        this.lines = new LineBuffer(this.maxLines);
+        view.setItems(lines);
+        openLog();
+
+        timer = new AnimationTimer() {
+            @Override
+            public void handle(long now) {
+                flush();
+            }
+        };
+        timer.start();
+    }
+
+    /**
+     * Method that appends text to the console. Lines are separated by '\n'.
+     * Safe to call from any thread; the text is written to the session log right away and shown on the next frame.
+     * If more lines are appended between two frames than the view holds, only the most recent ones are kept.
+     * @param text text to be appended
+     */
+    public void appendText(String text) {
+        synchronized (pending) {
+            writeLog(text);
+            int start = 0;
+            for (int i = text.indexOf('\n'); i >= 0; i = text.indexOf('\n', start)) {
+                String line;
+                if (partialLine.length() > 0) {
+                    line = partialLine.append(text, start, i).toString();
+                    partialLine.setLength(0);
+                } else {
+                    line = text.substring(start, i);
+                }
+                if (pending.size() == maxLines) {
+                    pending.removeFirst();
+                }
+                pending.addLast(line);
+                start = i + 1;
+            }
+            partialLine.append(text, start, text.length());
+        }
+    }
+
+    /**
+     * Method that saves every line appended this session to the given file, including lines no longer shown.
+     * @param target file the log is saved to
+     * @throws IOException if the session log is unavailable or the file cannot be written
+     */
+    public void save(Path target) throws IOException {
+        synchronized (pending) {
+            if (log == null) {
+                throw new IOException("session log is unavailable");
+            }
+            log.flush();
+            Files.copy(logFile, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Method that stops updating the view and closes and deletes the session log.
+     * Called when the window closes; text appended afterwards is ignored.
+     * @throws IOException if the session log cannot be closed or deleted
+     */
+    public void close() throws IOException {
+        timer.stop();
+        synchronized (pending) {
+            pending.clear();
+            partialLine.setLength(0);
+            if (log == null) {
+                return;
+            }
+            Writer closing = log;
+            log = null;
+            closing.close();
+            Files.deleteIfExists(logFile);
+        }
+    }
+
+    /**
+     * Helper method that creates the session log in a temporary file that is deleted when the application exits.
+     * If the file cannot be created, the console still works but the log cannot be saved.
+     */
+    private void openLog() {
+        try {
+            logFile = Files.createTempFile("bankteller-session", ".log");
+            logFile.toFile().deleteOnExit();
+            log = new BufferedWriter(Files.newBufferedWriter(logFile, StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            logFile = null;
+            log = null;
+        }
+    }
+
+    /**
+     * Helper method that writes appended text to the session log. If the log cannot be written, it is dropped and
+     *  the console keeps working without it. Called while holding the pending lock.
+     * @param text text to be written
+     */
+    private void writeLog(String text) {
+        if (log == null) {
+            return;
+        }
+        try {
+            log.write(text);
+        } catch (IOException e) {
+            log = null;
+        }
+    }
+
+    /**
+     * Helper method that moves the lines completed since the last frame into the view.
+     * Runs on the JavaFX application thread, and never handles more lines than the view holds.
+     */
+    private void flush() {
+        List<String> newLines;
+        synchronized (pending) {
+            if (pending.isEmpty()) {
+                return;
+            }
+            newLines = new ArrayList<>(pending);
+            pending.clear();
+        }
+
+        lines.addLines(newLines);
+        view.scrollTo(lines.size() - 1);
+    }
+
+    /**
+     * This class is an observable ring buffer of lines. Once full, adding lines drops the oldest ones.
+     */
+    private static class LineBuffer extends ObservableListBase<String> {
+
+        private final String[] ring;
+        private int head;
+        private int size;
+
+        /**
+         * Constructor that creates an empty buffer.
+         * @param capacity maximum number of lines kept
+         */
+        LineBuffer(int capacity) {
+            this.ring = new String[capacity];
+        }
+
+        /**
+         * Method that returns the line at the given position, oldest first.
+         * @param index position of the line
+         * @return line at the position
+         */
+        @Override
+        public String get(int index) {
+            if (index < 0 || index >= size) {
+                throw new IndexOutOfBoundsException(index);
+            }
+            return ring[(head + index) % ring.length];
+        }
+
+        /**
+         * Method that returns the number of lines kept.
+         * @return number of lines
+         */
+        @Override
+        public int size() {
+            return size;
+        }
+
+        /**
+         * Method that adds lines to the end of the buffer, dropping the oldest lines if it is full.
+         * Listeners get a single change for the whole batch.
+         * @param added lines to be added
+         */
+        void addLines(List<String> added) {
+            int first = Math.max(0, added.size() - ring.length);
+            int count = added.size() - first;
+            int evicted = Math.max(0, size + count - ring.length);
+
+            beginChange();
+            if (evicted > 0) {
+                List<String> removed = new ArrayList<>(evicted);
+                for (int i = 0; i < evicted; i++) {
+                    removed.add(get(i));
+                }
+                head = (head + evicted) % ring.length;
+                size -= evicted;
+                nextRemove(0, removed);
+            }
+            for (int i = first; i < added.size(); i++) {
+                ring[(head + size) % ring.length] = added.get(i);
+                size++;
+            }
+            nextAdd(size - count, size);
+            endChange();
+        }
+    }
+
+}
@@ -2,13 +2,19 @@ package bankteller.demo1;
 
 /**
  * This class holds the information of an account holder.
+ * Profiles never change once created. The case-folded names and the hash code are worked out once in the
+ *  constructor, so comparing two profiles is an identity check, then a hash check, then one String comparison.
+ *  A ProfileRegistry shares one profile between all of a holder's accounts, which makes the identity check the
+ *  usual case.
  * @author Afsana Rahman, Mini Sinha
  */
 public class Profile {
 
-    private String fname;
-    private String lname;
-    private Date dob;
+    private final String fname;
+    private final String lname;
+    private final Date dob;
+    private final String foldedNames;
+    private final int hash;
 
     /**
      * Constructor that creates new profile of an account holder.
@@ -17,9 +23,37 @@ public class Profile {
      * @param dob date of birth of account holder
      */
     public Profile(String fname, String lname, String dob) {
+        this(fname, lname, new Date(dob));
+    }
+
+    /**
+     * Constructor that creates new profile of an account holder with an already parsed date of birth.
+     * @param fname first name of account holder
+     * @param lname last name of account holder
+     * @param dob date of birth of account holder
+     */
+    Profile(String fname, String lname, Date dob) {
         this.fname = fname;
         this.lname = lname;
-        this.dob = new Date(dob);
+        this.dob = dob;
+        this.foldedNames = fold(fname) + ' ' + fold(lname);
+        this.hash = (foldedHash(fname) * 31 + foldedHash(lname)) * 31 + dob.hashCode();
+    }
+
+    /**
+     * Method that returns the first name of the account holder, spelled as it was entered.
+     * @return first name of account holder
+     */
+    public String getFname() {
+        return this.fname;
+    }
+
+    /**
+     * Method that returns the last name of the account holder, spelled as it was entered.
+     * @return last name of account holder
+     */
+    public String getLname() {
+        return this.lname;
     }
 
     /**
@@ -34,6 +68,9 @@ public class Profile {
      * Checks if current instance of profile is equal to given profile.
      * This method compares first and last name and birthday. All must be equal for profiles to be equal.
      * First and last name checks are NOT case-sensitive.
+     * Names are compared through their case-folded forms, which match exactly when equalsIgnoreCase would.
+     * The folded first name has the same length as the first name, so equal lengths and equal folded names mean
+     *  both names are equal.
      * @param obj object being compared
      * @return true if the profiles have all the same information, false otherwise
      */
@@ -46,8 +83,71 @@ public class Profile {
         }
 
         Profile profile = (Profile) obj;
-        return (this.fname.equalsIgnoreCase(profile.fname) && this.lname.equalsIgnoreCase(profile.lname)
-            && (this.dob.compareTo(profile.dob) == 0));
+        return this.hash == profile.hash && this.fname.length() == profile.fname.length()
+            && this.foldedNames.equals(profile.foldedNames) && (this.dob.compareTo(profile.dob) == 0);
+    }
+
+    /**
+     * Method that checks if this profile is spelled exactly like the given one, including case.
+     * @param profile profile being compared
+     * @return true if both names and the date of birth are identical, false otherwise
+     */
+    boolean sameSpelling(Profile profile) {
+        return this.fname.equals(profile.fname) && this.lname.equals(profile.lname)
+            && this.dob.compareTo(profile.dob) == 0;
+    }
+
+    /**
+     * Method that returns a hash code consistent with equals.
+     * Names are case-folded the same way equalsIgnoreCase compares them, so profiles that differ only by case
+     *  hash to the same value.
+     * The hash is worked out once when the profile is created.
+     * @return hash code of the profile
+     */
+    @Override
+    public int hashCode() {
+        return this.hash;
+    }
+
+    /**
+     * Helper method that case-folds a name the same way equalsIgnoreCase compares characters.
+     * @param name name to be folded
+     * @return folded name -- the same String if folding does not change it
+     */
+    private static String fold(String name) {
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (foldChar(c) != c) {
+                char[] folded = name.toCharArray();
+                for (int j = i; j < folded.length; j++) {
+                    folded[j] = foldChar(folded[j]);
+                }
+                return new String(folded);
+            }
+        }
+        return name;
+    }
+
+    /**
+     * Helper method that case-folds one character.
+     * @param c character to be folded
+     * @return lower case of the upper case of the character
+     */
+    private static char foldChar(char c) {
+        return Character.toLowerCase(Character.toUpperCase(c));
+    }
+
+    /**
+     * Helper method that hashes a name ignoring case.
+     * @param name name to be hashed
+     * @return case-insensitive hash of the name
+     */
+    private static int foldedHash(String name) {
+        int hash = 0;
+        for(int i = 0; i < name.length(); i++) {
+            hash = hash * 31 + foldChar(name.charAt(i));
+        }
+        return hash;
     }
 
     /**
@@ -60,4 +160,13 @@ public class Profile {
         return fname + " " + lname + " " + dob.toString();
     }
 
+    /**
+     * Method that writes profile information to the given StringBuilder in the same format as toString().
+     * @param sb StringBuilder the profile is written to
+     */
+    void appendTo(StringBuilder sb) {
+        sb.append(fname).append(' ').append(lname).append(' ');
+        dob.appendTo(sb);
+    }
+
 }
\ No newline at end of file
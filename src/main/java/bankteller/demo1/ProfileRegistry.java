@@ -0,0 +1,62 @@
+package bankteller.demo1;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * This class keeps one shared Profile for each account holder.
+ * Every account added to a database gets its holder from the registry, so a holder with several accounts is stored
+ *  once, and comparisons between the accounts of the same holder succeed on identity alone.
+ * Holders are matched like Profile.equals, ignoring the case of names, but listings show each account's name as
+ *  it was entered: a holder spelled differently from the registered profile keeps its own spelling.
+ * The registry is safe to share between threads.
+ * @author Afsana Rahman, Mini Sinha
+ */
+public class ProfileRegistry {
+
+    private final ConcurrentHashMap<Profile, Profile> profiles;
+
+    /**
+     * Constructor that creates an empty registry.
+     */
+    public ProfileRegistry() {
+        this(16);
+    }
+
+    /**
+     * Constructor that creates an empty registry pre-sized for an expected number of holders.
+     * @param expectedHolders number of holders the registry should hold without growing
+     */
+    public ProfileRegistry(int expectedHolders) {
+        this.profiles = new ConcurrentHashMap<>(AccountDatabase.hashCapacity(expectedHolders));
+    }
+
+    /**
+     * Method that returns the shared profile of a holder, registering the given profile if the holder is new.
+     * @param profile profile of the holder
+     * @return registered profile if it is spelled the same as the given one, the given profile otherwise
+     */
+    public Profile intern(Profile profile) {
+        Profile registered = profiles.putIfAbsent(profile, profile);
+        if (registered == null) {
+            return profile;
+        }
+        return registered.sameSpelling(profile) ? registered : profile;
+    }
+
+    /**
+     * Method that returns the registered profile of a holder without registering anything.
+     * @param profile profile of the holder, in any spelling
+     * @return registered profile -- null if the holder is not registered
+     */
+    public Profile find(Profile profile) {
+        return profiles.get(profile);
+    }
+
+    /**
+     * Method that returns the number of holders registered.
+     * @return number of distinct holders
+     */
+    public int size() {
+        return profiles.size();
+    }
+}
@@ -5,7 +5,7 @@ package bankteller.demo1;
  * A "Loyal" Savings account comes with several special perks including increased monthly interest.
  * @author Afsana Rahman, Mini Sinha
  */
-public class Savings extends Account{
+public sealed class Savings extends Account permits MoneyMarket {
 
     private static final int WAIVE_FEE_BALANCE = 300;
     private static final int MONTHLY_FEE = 6;
@@ -16,7 +16,7 @@ public class Savings extends Account{
 
     protected static final int LOYAL = 1;
 
-    protected int loyal;
+    protected volatile int loyal;
 
     /**
      * Constructor that creates an instance of a new Savings account.
@@ -38,18 +38,17 @@ public class Savings extends Account{
     }
 
     /**
-     * Method that converts current account information into a String.
-     * String is in format "accountType::FirstName LastName mm/dd/yyy::Balance $#,##0.00::CLOSED::Loyal".
-     * String will only contain "::CLOSED" if account is currently closed, and "::Loyal" only if account is LOYAL.
-     * @return String containing account information
+     * Method that writes current account information to the given StringBuilder.
+     * Format is "accountType::FirstName LastName mm/dd/yyy::Balance $#,##0.00::CLOSED::Loyal".
+     * Output will only contain "::CLOSED" if account is currently closed, and "::Loyal" only if account is LOYAL.
+     * @param sb StringBuilder the account information is written to
      */
     @Override
-    public String toString() {
-        String toString = super.toString();
+    protected void appendTo(StringBuilder sb) {
+        super.appendTo(sb);
         if(this.loyal == LOYAL) {
-            toString += "::Loyal";
+            sb.append("::Loyal");
         }
-        return toString;
     }
 
     /**
@@ -67,22 +66,23 @@ public class Savings extends Account{
     }
 
     /**
-     * Method that returns the monthly fee on current account.
-     * Monthly fee is waived if current balance is greater than $300. Otherwise, an account is charged $6/month.
+     * Method that returns the monthly fee current account would be charged with the given balance.
+     * Monthly fee is waived if the balance is greater than $300. Otherwise, an account is charged $6/month.
+     * @param balanceCents balance the fee is charged on, in cents
      * @return monthly fee for current account
      */
     @Override
-    public double fee() {
-        return ((this.balance >= WAIVE_FEE_BALANCE) ? 0 : MONTHLY_FEE);
+    protected double feeFor(long balanceCents) {
+        return ((balanceCents >= WAIVE_FEE_BALANCE * CENTS_PER_DOLLAR) ? 0 : MONTHLY_FEE);
     }
 
     /**
      * Method that returns the account type of the current account.
-     * @return "Savings"
+     * @return AccountType.SAVINGS
      */
     @Override
-    public String getType() {
-        return "Savings";
+    public AccountType getAccountType() {
+        return AccountType.SAVINGS;
     }
 
     /**
@@ -0,0 +1,404 @@
+package bankteller.demo1;
+
+import java.io.IOException;
+
+/**
+ * This class carries out Bank Teller commands on an account database without a window.
+ * Each command is one line of text and its results are written to an Appendable, using the messages of the Bank
+ *  Teller window; only mistakes the window cannot make, such as missing data or an unknown account type or loyalty
+ *  code, have messages of their own. Commands are:
+ *  "O type fname lname dob amount" to open (College Checking adds a campus code 0-2, Savings adds loyalty 0 or 1),
+ *  "C type fname lname dob" to close, "D type fname lname dob amount" to deposit,
+ *  "W type fname lname dob amount" to withdraw, "P", "PT", and "PI" to list accounts in the three orderings,
+ *  "UB" to update balances, and "Q" to quit.
+ * Account types are "C" (Checking), "CC" (College Checking), "S" (Savings), and "MM" (Money Market).
+ * Commands are read with a CommandTokenizer, which scans the line without regular expressions.
+ * A teller keeps no state of its own, so one teller can serve any number of threads sharing the same database.
+ * @author Afsana Rahman, Mini Sinha
+ */
+public class Teller {
+
+    private static final int MM_MIN_BAL = 2500;
+
+    private final AccountDatabase database;
+
+    /**
+     * Constructor that creates a teller working on the given database.
+     * @param database account database the commands are carried out on
+     */
+    public Teller(AccountDatabase database) {
+        this.database = database;
+    }
+
+    /**
+     * Method that returns the database this teller works on.
+     * @return account database
+     */
+    public AccountDatabase getDatabase() {
+        return database;
+    }
+
+    /**
+     * This method carries out one command and writes its results to the given output, one message per line.
+     * Blank lines are ignored.
+     * @param command command line, such as "D C John Doe 1/2/1990 100"
+     * @param out destination for the results
+     * @return false if the command was "Q" and the session should end, true otherwise
+     * @throws IOException if the output cannot be written to
+     */
+    public boolean execute(CharSequence command, Appendable out) throws IOException {
+        return execute(new CommandTokenizer(command), out);
+    }
+
+    /**
+     * This method carries out the command a tokenizer has been reset to and writes its results to the given output.
+     * Batch processing reuses one tokenizer for every line instead of creating one per command.
+     * @param tokens tokenizer positioned at the start of the command line
+     * @param out destination for the results
+     * @return false if the command was "Q" and the session should end, true otherwise
+     * @throws IOException if the output cannot be written to
+     */
+    boolean execute(CommandTokenizer tokens, Appendable out) throws IOException {
+        if (!tokens.hasMoreTokens()) {
+            return true;
+        }
+        switch (tokens.nextToken()) {
+            case "O":
+                open(tokens, out);
+                break;
+            case "C":
+                close(tokens, out);
+                break;
+            case "D":
+                deposit(tokens, out);
+                break;
+            case "W":
+                withdraw(tokens, out);
+                break;
+            case "P":
+                print(out);
+                break;
+            case "PT":
+                printByType(out);
+                break;
+            case "PI":
+                printWithFeesAndInterest(out);
+                break;
+            case "UB":
+                updateBalances(out);
+                break;
+            case "Q":
+                out.append("Bank Teller is terminated.\n");
+                return false;
+            default:
+                out.append("Invalid command!\n");
+        }
+        return true;
+    }
+
+    /**
+     * This method opens or reopens the account described by the rest of an "O" command.
+     * @param tokens remaining tokens of the command: type, first name, last name, date of birth, initial deposit, and
+     *  the campus code or loyalty for College Checking and Savings accounts
+     * @param out destination for the results
+     * @throws IOException if the output cannot be written to
+     */
+    private void open(CommandTokenizer tokens, Appendable out) throws IOException {
+        if (tokens.countTokens() < 5) {
+            out.append("Missing data for opening an account.\n");
+            return;
+        }
+        String type = tokens.nextToken();
+        Profile profile = makeProfile(tokens, out);
+        if (profile == null) return;
+        double balance = parseAmount(tokens.nextToken());
+        if (Double.isNaN(balance)) {
+            out.append("Not a valid initial deposit.\n");
+            return;
+        } else if (balance <= 0) {
+            out.append("Initial deposit cannot be 0 or negative.\n");
+            return;
+        }
+
+        Account account;
+        switch (type) {
+            case "C":
+                account = new Checking(profile, balance);
+                break;
+            case "CC":
+                int campusCode = parseCode(tokens);
+                if (campusCode < 0 || campusCode > 2) {
+                    out.append("Please select a campus.\n");
+                    return;
+                }
+                account = new CollegeChecking(profile, balance, campusCode);
+                break;
+            case "S":
+                int loyal = parseCode(tokens);
+                if (loyal != 0 && loyal != 1) {
+                    out.append("Invalid loyalty code.\n");
+                    return;
+                }
+                account = new Savings(profile, balance, loyal);
+                break;
+            case "MM":
+                if (balance < MM_MIN_BAL) {
+                    out.append("Minimum of $2500 to open a MoneyMarket account.\n");
+                    return;
+                }
+                account = new MoneyMarket(profile, balance);
+                break;
+            default:
+                out.append("Invalid account type.\n");
+                return;
+        }
+
+        switch (database.openAccount(account)) {
+            case OPENED:
+                out.append("Account opened.\n");
+                break;
+            case REOPENED:
+                out.append("Account reopened.\n");
+                break;
+            case INVALID: // an initial deposit of less than half a cent
+                out.append("Initial deposit cannot be 0 or negative.\n");
+                break;
+            default: // ALREADY_OPEN or CHECKING_LIMIT
+                out.append(profile.toString()).append(" same account(type) is in the database.\n");
+                break;
+        }
+    }
+
+    /**
+     * This method closes the account described by the rest of a "C" command.
+     * @param tokens remaining tokens of the command: type, first name, last name, and date of birth
+     * @param out destination for the results
+     * @throws IOException if the output cannot be written to
+     */
+    private void close(CommandTokenizer tokens, Appendable out) throws IOException {
+        if (tokens.countTokens() < 4) {
+            out.append("Missing data for closing an account.\n");
+            return;
+        }
+        Account account = makeAccount(tokens, null, out);
+        if (account == null) return;
+        if (database.close(account)) {
+            out.append("Account closed.\n");
+        } else if (database.getAccount(account) != null) {
+            out.append("Account is closed already.\n");
+        } else {
+            notFound(account, out);
+        }
+    }
+
+    /**
+     * This method deposits to the account described by the rest of a "D" command.
+     * @param tokens remaining tokens of the command: type, first name, last name, date of birth, and amount
+     * @param out destination for the results
+     * @throws IOException if the output cannot be written to
+     */
+    private void deposit(CommandTokenizer tokens, Appendable out) throws IOException {
+        Account account = makeTransaction(tokens, "Deposit - ", out);
+        if (account == null) return;
+        if (database.getAccount(account) == null) {
+            notFound(account, out);
+            return;
+        }
+        database.deposit(account);
+        out.append("Deposit - balance updated.\n");
+    }
+
+    /**
+     * This method withdraws from the account described by the rest of a "W" command.
+     * @param tokens remaining tokens of the command: type, first name, last name, date of birth, and amount
+     * @param out destination for the results
+     * @throws IOException if the output cannot be written to
+     */
+    private void withdraw(CommandTokenizer tokens, Appendable out) throws IOException {
+        Account account = makeTransaction(tokens, "Withdraw - ", out);
+        if (account == null) return;
+        if (database.getAccount(account) == null) {
+            notFound(account, out);
+        } else if (database.withdraw(account)) {
+            out.append("Withdraw - balance updated.\n");
+        } else {
+            out.append("Withdraw - insufficient funds.\n");
+        }
+    }
+
+    /**
+     * This method lists all accounts in the database.
+     * @param out destination for the listing
+     * @throws IOException if the output cannot be written to
+     */
+    private void print(Appendable out) throws IOException {
+        if (database.getNumAcct() == 0) {
+            out.append("Account database is empty!\n");
+        } else {
+            out.append("*list of accounts in the database\n");
+            database.print(out);
+        }
+    }
+
+    /**
+     * This method lists all accounts ordered by their type.
+     * @param out destination for the listing
+     * @throws IOException if the output cannot be written to
+     */
+    private void printByType(Appendable out) throws IOException {
+        if (database.getNumAcct() == 0) {
+            out.append("Account database is empty!\n");
+        } else {
+            out.append("*list of accounts by account type. \n");
+            database.printByAccountType(out);
+        }
+    }
+
+    /**
+     * This method lists all accounts along with their monthly fees and interest.
+     * @param out destination for the listing
+     * @throws IOException if the output cannot be written to
+     */
+    private void printWithFeesAndInterest(Appendable out) throws IOException {
+        if (database.getNumAcct() == 0) {
+            out.append("Account database is empty!\n");
+        } else {
+            database.printFeeAndInterest(out);
+        }
+    }
+
+    /**
+     * This method applies monthly fees and interest to all accounts, then lists them.
+     * @param out destination for the listing
+     * @throws IOException if the output cannot be written to
+     */
+    private void updateBalances(Appendable out) throws IOException {
+        if (database.getNumAcct() == 0) {
+            out.append("Account Database is empty!\n");
+        } else {
+            database.updateBalances();
+            out.append("*list of accounts with updated balance\n");
+            database.print(out);
+        }
+    }
+
+    /**
+     * This method creates the account a deposit or withdrawal is made to, holding the amount as its balance.
+     * @param tokens remaining tokens of the command: type, first name, last name, date of birth, and amount
+     * @param prefix start of the message for a 0 or negative amount
+     * @param out destination for error messages
+     * @return account holding the amount -- null if the command is not valid
+     * @throws IOException if the output cannot be written to
+     */
+    private Account makeTransaction(CommandTokenizer tokens, String prefix, Appendable out) throws IOException {
+        if (tokens.countTokens() < 5) {
+            out.append("Missing data for a deposit or withdrawal.\n");
+            return null;
+        }
+        return makeAccount(tokens, prefix, out);
+    }
+
+    /**
+     * This method creates an account from the type, name, and date of birth tokens of a command.
+     * For deposits and withdrawals the amount is read from the next token and must be greater than 0.
+     * @param tokens remaining tokens of the command
+     * @param prefix start of the message for a 0 or negative amount -- null if the command has no amount
+     * @param out destination for error messages
+     * @return account of the given type, holding the amount as its balance -- null if the command is not valid
+     * @throws IOException if the output cannot be written to
+     */
+    private Account makeAccount(CommandTokenizer tokens, String prefix, Appendable out) throws IOException {
+        String type = tokens.nextToken();
+        Profile profile = makeProfile(tokens, out);
+        if (profile == null) return null;
+        double amount = 0;
+        if (prefix != null) {
+            amount = parseAmount(tokens.nextToken());
+            if (Double.isNaN(amount)) {
+                out.append("Please enter a valid amount.\n");
+                return null;
+            } else if (amount <= 0) {
+                out.append(prefix).append("amount cannot be 0 or negative.\n");
+                return null;
+            }
+        }
+        switch (type) {
+            case "C":
+                return new Checking(profile, amount);
+            case "CC":
+                return new CollegeChecking(profile, amount, 0);
+            case "S":
+                return new Savings(profile, amount, 0);
+            case "MM":
+                return new MoneyMarket(profile, amount);
+            default:
+                out.append("Invalid account type.\n");
+                return null;
+        }
+    }
+
+    /**
+     * This method creates a profile from the first name, last name, and date of birth tokens of a command.
+     * The date of birth must be a valid date in the past.
+     * @param tokens remaining tokens of the command, starting with the first name
+     * @param out destination for error messages
+     * @return profile of the account holder -- null if the date of birth is not valid
+     * @throws IOException if the output cannot be written to
+     */
+    private Profile makeProfile(CommandTokenizer tokens, Appendable out) throws IOException {
+        String fname = tokens.nextToken();
+        String lname = tokens.nextToken();
+        Date dob = tokens.nextDate();
+        if (!validBirthday(dob)) {
+            out.append("Please enter a valid birthday.\n");
+            return null;
+        }
+        return new Profile(fname, lname, dob);
+    }
+
+    /**
+     * Checks if a date of birth is a valid past date.
+     * @param birthday date of birth read from the command -- null if it was not in "mm/dd/yyyy" format
+     * @return true if the birthday is a possible birthday, false otherwise
+     */
+    private static boolean validBirthday(Date birthday) {
+        return birthday != null && birthday.isValid() && birthday.compareTo(Date.today()) < 0;
+    }
+
+    /**
+     * Helper method that reads a dollar amount.
+     * @param amount String form of the amount
+     * @return amount in dollars -- NaN if it is not a number or is larger than MoneyFormat.MAX_AMOUNT
+     */
+    private static double parseAmount(String amount) {
+        try {
+            double value = Double.parseDouble(amount);
+            return MoneyFormat.isValidAmount(value) ? value : Double.NaN;
+        } catch (NumberFormatException e) {
+            return Double.NaN;
+        }
+    }
+
+    /**
+     * Helper method that reads the campus code or loyalty at the end of an "O" command.
+     * @param tokens remaining tokens of the command
+     * @return code given in the command -- -1 if it is missing or not a number
+     */
+    private static int parseCode(CommandTokenizer tokens) {
+        if (!tokens.hasMoreTokens()) {
+            return -1;
+        }
+        return tokens.nextCode();
+    }
+
+    /**
+     * Helper method that reports an account that is not in the database.
+     * @param account account that was searched for
+     * @param out destination for the message
+     * @throws IOException if the output cannot be written to
+     */
+    private static void notFound(Account account, Appendable out) throws IOException {
+        out.append(account.getHolder().toString()).append(' ').append(account.getType())
+                .append(" is not in the database.\n");
+    }
+}
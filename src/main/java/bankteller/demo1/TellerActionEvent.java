@@ -0,0 +1,35 @@
+package bankteller.demo1;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * This class is the Java Flight Recorder event for one action taken in the Bank Teller window.
+ * Account actions and transactions last from the click to the message shown to the teller, which is recorded as
+ *  the outcome. Listings and the balance update last until their job has finished, failed, or been cancelled, and
+ *  record the number of accounts they covered.
+ * @author Afsana Rahman, Mini Sinha
+ */
+@Name("bankteller.TellerAction")
+@Label("Teller Action")
+@Category({"Bank Teller", "Teller Window"})
+@Description("An action taken in the Bank Teller window")
+@StackTrace(false)
+public class TellerActionEvent extends Event {
+
+    @Label("Action")
+    public String action;
+
+    @Label("Account Type")
+    public String accountType;
+
+    @Label("Accounts")
+    public int accounts;
+
+    @Label("Outcome")
+    public String outcome;
+}
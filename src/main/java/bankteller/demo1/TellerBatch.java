@@ -0,0 +1,149 @@
+package bankteller.demo1;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * This class applies a file of Bank Teller commands to an account database, writing the results to another file.
+ * Commands are one per line in the format read by Teller, with the same validation and messages as the Bank Teller
+ *  window. Processing stops at a "Q" command or the end of the file.
+ * The file is streamed through a fixed character buffer and each line is handed to Teller in place, through one
+ *  reusable tokenizer, so memory use does not grow with the size of the file.
+ * @author Afsana Rahman, Mini Sinha
+ */
+public class TellerBatch {
+
+    private static final int BUFFER_CHARS = 1 << 16;
+
+    private final Teller teller;
+
+    /**
+     * Constructor that creates a batch processor working on the given database.
+     * @param database account database the commands are applied to
+     */
+    public TellerBatch(AccountDatabase database) {
+        this.teller = new Teller(database);
+    }
+
+    /**
+     * This method applies every command in a file and writes their results to an output file.
+     * @param input file of commands, one per line, in UTF-8
+     * @param output file the results are written to, replaced if it exists
+     * @return number of commands read, not counting blank lines
+     * @throws IOException if either file cannot be read or written
+     */
+    public long process(Path input, Path output) throws IOException {
+        try (Reader in = new InputStreamReader(Files.newInputStream(input), StandardCharsets.UTF_8);
+             Writer out = new BufferedWriter(Files.newBufferedWriter(output, StandardCharsets.UTF_8), BUFFER_CHARS)) {
+            return process(in, out);
+        }
+    }
+
+    /**
+     * This method applies every command read from a stream and writes their results to the given output.
+     * Lines may end in "\n" or "\r\n"; the last line does not need a line ending.
+     * @param in source of commands, one per line
+     * @param out destination for the results
+     * @return number of commands read, not counting blank lines
+     * @throws IOException if the source cannot be read or the output cannot be written to
+     */
+    public long process(Reader in, Appendable out) throws IOException {
+        char[] buffer = new char[BUFFER_CHARS];
+        CharBuffer line = CharBuffer.wrap(buffer);
+        CommandTokenizer tokens = new CommandTokenizer();
+        long commands = 0;
+        int start = 0;
+        int filled = 0;
+        boolean endOfInput = false;
+        while (true) {
+            int newline = indexOfNewline(buffer, start, filled);
+            if (newline < 0 && !endOfInput) {
+                if (start == 0 && filled == buffer.length) {
+                    buffer = Arrays.copyOf(buffer, buffer.length * 2);
+                    line = CharBuffer.wrap(buffer);
+                } else if (start > 0) {
+                    System.arraycopy(buffer, start, buffer, 0, filled - start);
+                    filled -= start;
+                    start = 0;
+                }
+                int read = in.read(buffer, filled, buffer.length - filled);
+                if (read < 0) {
+                    endOfInput = true;
+                } else {
+                    filled += read;
+                }
+                continue;
+            }
+            int end = newline < 0 ? filled : newline;
+            if (end > start) {
+                line.limit(end).position(start);
+                if (tokens.reset(line).hasMoreTokens()) {
+                    commands++;
+                    if (!teller.execute(tokens, out)) {
+                        return commands;
+                    }
+                }
+            }
+            if (newline < 0) {
+                return commands;
+            }
+            start = newline + 1;
+        }
+    }
+
+    /**
+     * Helper method that finds the next line ending in the buffer.
+     * @param buffer characters read so far
+     * @param from index to start searching at
+     * @param to index one past the last character read
+     * @return index of the next '\n' -- -1 if there is none
+     */
+    private static int indexOfNewline(char[] buffer, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (buffer[i] == '\n') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Driver main. Applies the commands in the file named by the first argument to a new database and writes the
+     *  results to the file named by the second.
+     * The database is rebuilt from its journal first when the "bankteller.journal.dir" system property is set, so a
+     *  batch can be applied to the accounts kept by the Bank Teller server and window. When the "bankteller.metrics"
+     *  system property is true, the metrics of the batch are printed after it.
+     * @param args input file and output file
+     * @throws IOException if either file or the journal cannot be read or written
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: TellerBatch <command file> <result file>");
+            System.exit(2);
+        }
+        AccountDatabase database = new AccountDatabase();
+        AccountJournal journal = AccountJournal.recoverFromSystemProperties(database);
+        AccountMetrics metrics = AccountMetrics.fromSystemProperties(database);
+        try {
+            long start = System.nanoTime();
+            long commands = new TellerBatch(database).process(Path.of(args[0]), Path.of(args[1]));
+            long millis = (System.nanoTime() - start) / 1_000_000;
+            System.out.println("Processed " + commands + " commands in " + millis + " ms.");
+            if (metrics != null) {
+                System.out.print(metrics.dump());
+            }
+        } finally {
+            if (journal != null) {
+                journal.close();
+            }
+        }
+    }
+}
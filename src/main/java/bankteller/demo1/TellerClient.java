@@ -0,0 +1,80 @@
+package bankteller.demo1;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * This class is a teller terminal's connection to a Bank Teller server.
+ * Commands are sent one at a time, in the format read by Teller, and each call returns the server's response.
+ * A client is meant to be used by one thread at a time; terminals working in parallel each open their own client.
+ * @author Afsana Rahman, Mini Sinha
+ */
+public class TellerClient implements Closeable {
+
+    private final Socket socket;
+    private final BufferedReader in;
+    private final Writer out;
+
+    /**
+     * Constructor that connects to a Bank Teller server.
+     * @param host host name of the server
+     * @param port port the server listens on
+     * @throws IOException if the server cannot be reached
+     */
+    public TellerClient(String host, int port) throws IOException {
+        this.socket = new Socket(host, port);
+        this.socket.setTcpNoDelay(true);
+        this.in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+        this.out = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8));
+    }
+
+    /**
+     * This method sends one command and returns the server's response.
+     * @param command command line, such as "O C John Doe 1/2/1990 100"
+     * @return response lines, each ending in a newline
+     * @throws IOException if the connection fails or the server closes it before responding
+     */
+    public String send(String command) throws IOException {
+        StringBuilder response = new StringBuilder();
+        send(command, response);
+        return response.toString();
+    }
+
+    /**
+     * This method sends one command and streams the server's response to the given output.
+     * Use this for listings of large databases so the response does not have to be held in memory.
+     * @param command command line
+     * @param response destination for the response lines, each ending in a newline
+     * @throws IOException if the connection fails or the server closes it before responding
+     */
+    public void send(String command, Appendable response) throws IOException {
+        out.write(command);
+        out.write('\n');
+        out.flush();
+        String line;
+        while ((line = in.readLine()) != null) {
+            if (line.equals(TellerServer.END_OF_RESPONSE)) {
+                return;
+            }
+            response.append(line).append('\n');
+        }
+        throw new EOFException("Bank Teller server closed the connection.");
+    }
+
+    /**
+     * This method closes the connection to the server.
+     * @throws IOException if the connection cannot be closed
+     */
+    @Override
+    public void close() throws IOException {
+        socket.close();
+    }
+}
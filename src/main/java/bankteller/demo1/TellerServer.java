@@ -0,0 +1,177 @@
+package bankteller.demo1;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.reflect.Method;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * This is the driver class for running the Bank Teller as a server without a window.
+ * Teller terminals connect over TCP on the local machine and send one command per line, in the format read by
+ *  Teller. The server writes the results of each command followed by a line holding only ".", so a terminal knows
+ *  where each response ends. Every connection shares one in-memory account database.
+ * Each connection is handled on its own virtual thread when the Java runtime provides them, and on a pooled
+ *  platform thread otherwise.
+ * @author Afsana Rahman, Mini Sinha
+ */
+public class TellerServer implements Closeable {
+
+    public static final int DEFAULT_PORT = 7878;
+    public static final String END_OF_RESPONSE = ".";
+
+    private final Teller teller;
+    private final ServerSocket serverSocket;
+    private final ExecutorService connections;
+    private final Set<Socket> sessions = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Constructor that starts listening for teller terminals on the loopback address.
+     * @param database account database shared by every connection
+     * @param port port to listen on -- 0 picks any free port
+     * @throws IOException if the port cannot be opened
+     */
+    public TellerServer(AccountDatabase database, int port) throws IOException {
+        this.teller = new Teller(database);
+        this.serverSocket = new ServerSocket();
+        this.serverSocket.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+        this.connections = newConnectionExecutor();
+    }
+
+    /**
+     * Helper method that creates the executor connections are handled on.
+     * Virtual threads are looked up by name so the server still builds and runs on Java releases without them.
+     * @return executor starting a virtual thread per task, or a cached thread pool if virtual threads are unavailable
+     */
+    static ExecutorService newConnectionExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException | UnsupportedOperationException e) {
+            return Executors.newCachedThreadPool();
+        }
+    }
+
+    /**
+     * Method that returns the port the server is listening on.
+     * @return local port
+     */
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    /**
+     * This method accepts teller terminals until the server is closed, handing each one to its own thread.
+     * @throws IOException if accepting a connection fails while the server is still open
+     */
+    public void serve() throws IOException {
+        while (!serverSocket.isClosed()) {
+            Socket socket;
+            try {
+                socket = serverSocket.accept();
+            } catch (SocketException e) {
+                if (serverSocket.isClosed()) {
+                    return;
+                }
+                throw e;
+            }
+            sessions.add(socket);
+            if (serverSocket.isClosed()) { // closed while accepting; close() may have missed this socket
+                sessions.remove(socket);
+                socket.close();
+                return;
+            }
+            connections.execute(() -> handle(socket));
+        }
+    }
+
+    /**
+     * This method carries out the commands sent by one teller terminal until it sends "Q" or disconnects.
+     * An unexpected error ends only this session: it is logged and the connection is closed.
+     * @param socket connection to the terminal
+     */
+    private void handle(Socket socket) {
+        try (socket;
+             BufferedReader in = new BufferedReader(
+                     new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+             Writer out = new BufferedWriter(
+                     new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8))) {
+            socket.setTcpNoDelay(true);
+            String command;
+            boolean running = true;
+            while (running && (command = in.readLine()) != null) {
+                running = teller.execute(command, out);
+                out.write(END_OF_RESPONSE);
+                out.write('\n');
+                out.flush();
+            }
+        } catch (IOException e) {
+            // the terminal disconnected or the server was closed; its session simply ends
+        } catch (RuntimeException e) {
+            System.err.println("Teller session with " + socket.getRemoteSocketAddress() + " failed: " + e);
+            e.printStackTrace();
+        } finally {
+            sessions.remove(socket);
+        }
+    }
+
+    /**
+     * This method stops accepting connections and ends the sessions of connected terminals.
+     * Each terminal's connection is closed, which stops its session even while it is waiting for a command.
+     * @throws IOException if the server socket cannot be closed
+     */
+    @Override
+    public void close() throws IOException {
+        serverSocket.close();
+        for (Socket socket : sessions) {
+            try {
+                socket.close();
+            } catch (IOException e) {
+                // the connection is being closed anyway
+            }
+        }
+        connections.shutdownNow();
+    }
+
+    /**
+     * Driver main. The port to listen on may be given as the first argument; the default is 7878.
+     * The database is rebuilt from its journal when the "bankteller.journal.dir" system property is set, and the
+     *  journal is closed when the server is stopped. Metrics are published over JMX when the "bankteller.metrics"
+     *  system property is true.
+     * @param args optional port number
+     * @throws IOException if the port or journal cannot be opened
+     */
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        AccountDatabase database = new AccountDatabase();
+        AccountJournal journal = AccountJournal.recoverFromSystemProperties(database);
+        if (journal != null) {
+            System.out.println("Restored " + database.getNumAcct() + " accounts from the journal.");
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                try {
+                    journal.close();
+                } catch (IOException e) {
+                    System.err.println("Could not close the journal: " + e.getMessage());
+                }
+            }));
+        }
+        AccountMetrics.fromSystemProperties(database);
+        try (TellerServer server = new TellerServer(database, port)) {
+            System.out.println("Bank Teller server is listening on port " + server.getPort() + ".");
+            server.serve();
+        }
+    }
+}
@@ -0,0 +1,220 @@
+package bankteller.demo1;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+/**
+ * This class tests that an AccountJournal records every change to an account database and that replaying it
+ *  rebuilds the same database, including after a crash in the middle of the last record.
+ * @author Afsana Rahman, Mini Sinha
+ */
+class AccountJournalTest {
+
+    private static final Profile JOHN = new Profile("John", "Doe", "1/2/1990");
+    private static final Profile JANE = new Profile("Jane", "Roe", "3/4/1985");
+
+    @TempDir
+    Path directory;
+
+    /**
+     * Test that opens of every account type are replayed with their initial deposit, campus, and loyalty.
+     * @throws IOException if the journal cannot be written or read
+     */
+    @Test
+    void replaysOpens() throws IOException {
+        assertRoundTrip(4, database -> {
+            database.open(new Checking(JOHN, 100));
+            database.open(new CollegeChecking(JANE, 250.50, 1));
+            database.open(new Savings(JOHN, 500, 1));
+            database.open(new MoneyMarket(JANE, 3000));
+        });
+    }
+
+    /**
+     * Test that closes, and reopens of closed accounts, are replayed.
+     * @throws IOException if the journal cannot be written or read
+     */
+    @Test
+    void replaysCloses() throws IOException {
+        assertRoundTrip(5, database -> {
+            database.open(new Checking(JOHN, 100));
+            database.open(new Savings(JANE, 500, 1));
+            database.close(new Checking(JOHN, 0));
+            database.close(new Savings(JANE, 0, 0));
+            database.open(new Checking(JOHN, 40));
+        });
+    }
+
+    /**
+     * Test that deposits are replayed, and that a deposit to an account that is not open is not journaled.
+     * @throws IOException if the journal cannot be written or read
+     */
+    @Test
+    void replaysDeposits() throws IOException {
+        assertRoundTrip(3, database -> {
+            database.open(new Checking(JOHN, 100));
+            database.deposit(new Checking(JOHN, 10.25));
+            database.deposit(new Checking(JOHN, 0.75));
+            database.deposit(new Savings(JOHN, 50, 0));
+        });
+    }
+
+    /**
+     * Test that withdrawals are replayed, including the Money Market withdrawal count, and that a withdrawal
+     *  refused for insufficient funds is not journaled.
+     * @throws IOException if the journal cannot be written or read
+     */
+    @Test
+    void replaysWithdrawals() throws IOException {
+        assertRoundTrip(4, database -> {
+            database.open(new MoneyMarket(JANE, 3000));
+            database.withdraw(new MoneyMarket(JANE, 100));
+            database.withdraw(new MoneyMarket(JANE, 200));
+            database.withdraw(new MoneyMarket(JANE, 1000000));
+            database.withdraw(new MoneyMarket(JANE, 50));
+        });
+    }
+
+    /**
+     * Test that month-end updates are replayed, applying interest and fees in the same order as the changes
+     *  around them.
+     * @throws IOException if the journal cannot be written or read
+     */
+    @Test
+    void replaysMonthEnds() throws IOException {
+        assertRoundTrip(5, database -> {
+            database.open(new Checking(JOHN, 100));
+            database.open(new MoneyMarket(JANE, 3000));
+            database.updateBalances();
+            database.deposit(new Checking(JOHN, 1500));
+            database.updateBalances();
+        });
+    }
+
+    /**
+     * Test that replay stops at a last record cut short by a crash, keeping every record before it.
+     * @throws IOException if the journal cannot be written or read
+     */
+    @Test
+    void replayStopsAtTruncatedLastRecord() throws IOException {
+        Path segment = journalThreeChanges();
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 1);
+        }
+        assertReplayedTwoChanges();
+    }
+
+    /**
+     * Test that replay stops at a last record whose checksum does not match its contents, keeping every record
+     *  before it.
+     * @throws IOException if the journal cannot be written or read
+     */
+    @Test
+    void replayStopsAtCorruptedLastRecord() throws IOException {
+        Path segment = journalThreeChanges();
+        byte[] bytes = Files.readAllBytes(segment);
+        bytes[bytes.length - 1] ^= 1;
+        Files.write(segment, bytes);
+        assertReplayedTwoChanges();
+    }
+
+    /**
+     * Test that recovering the journal after it is closed rebuilds a database that prints exactly as the original.
+     * @throws IOException if the journal cannot be written or read
+     */
+    @Test
+    void recoverAfterCloseReproducesPrint() throws IOException {
+        AccountDatabase original = new AccountDatabase();
+        AccountJournal journal = AccountJournal.recover(directory, original, AccountJournal.FsyncPolicy.ALWAYS);
+        everyChange(original);
+        journal.close();
+
+        AccountDatabase recovered = new AccountDatabase();
+        try (AccountJournal reopened = AccountJournal.recover(directory, recovered,
+                AccountJournal.FsyncPolicy.ALWAYS)) {
+            assertNotNull(reopened);
+            assertArrayEquals(original.print().getBytes(StandardCharsets.UTF_8),
+                    recovered.print().getBytes(StandardCharsets.UTF_8));
+            assertEquals(original.printByAccountType(), recovered.printByAccountType());
+        }
+    }
+
+    /**
+     * Helper method that makes changes to a journaled database, replays the journal into an empty database, and
+     *  checks that both databases print the same.
+     * @param records number of records the changes should journal
+     * @param changes changes made to the journaled database
+     * @throws IOException if the journal cannot be written or read
+     */
+    private void assertRoundTrip(int records, Consumer<AccountDatabase> changes) throws IOException {
+        AccountDatabase original = new AccountDatabase();
+        AccountJournal journal = AccountJournal.recover(directory, original, AccountJournal.FsyncPolicy.NEVER);
+        changes.accept(original);
+        journal.close();
+
+        AccountDatabase replayed = new AccountDatabase();
+        assertEquals(records, AccountJournal.replay(directory, replayed));
+        assertEquals(original.print(), replayed.print());
+        assertEquals(original.printFeeAndInterest(), replayed.printFeeAndInterest());
+    }
+
+    /**
+     * Helper method that journals an open followed by two deposits in a single segment.
+     * @return path of the segment
+     * @throws IOException if the journal cannot be written
+     */
+    private Path journalThreeChanges() throws IOException {
+        AccountDatabase database = new AccountDatabase();
+        try (AccountJournal journal = AccountJournal.recover(directory, database, AccountJournal.FsyncPolicy.NEVER)) {
+            assertNotNull(journal);
+            database.open(new Checking(JOHN, 100));
+            database.deposit(new Checking(JOHN, 10));
+            database.deposit(new Checking(JOHN, 20));
+        }
+        List<Path> segments = AccountJournal.segments(directory);
+        assertEquals(1, segments.size());
+        return segments.get(0);
+    }
+
+    /**
+     * Helper method that checks that replaying the journal written by journalThreeChanges() keeps only the open and
+     *  the first deposit.
+     * @throws IOException if the journal cannot be read
+     */
+    private void assertReplayedTwoChanges() throws IOException {
+        AccountDatabase database = new AccountDatabase();
+        assertEquals(2, AccountJournal.replay(directory, database));
+        Account account = database.getAccount(new Checking(JOHN, 0));
+        assertNotNull(account);
+        assertEquals(11000, account.getBalanceCents());
+    }
+
+    /**
+     * Helper method that makes a change of every kind the journal records.
+     * @param database database the changes are made to
+     */
+    private static void everyChange(AccountDatabase database) {
+        database.open(new Checking(JOHN, 100));
+        database.open(new CollegeChecking(JANE, 250.50, 2));
+        database.open(new Savings(JOHN, 500, 1));
+        database.open(new MoneyMarket(JANE, 3000));
+        database.deposit(new Savings(JOHN, 12.34, 0));
+        database.withdraw(new MoneyMarket(JANE, 100));
+        database.updateBalances();
+        database.close(new Checking(JOHN, 0));
+        database.withdraw(new CollegeChecking(JANE, 50, 0));
+    }
+}
@@ -0,0 +1,96 @@
+package bankteller.demo1;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * This class tests that AccountMetrics counts every operation on an AccountDatabase exactly, whichever thread runs it.
+ * @author Afsana Rahman, Mini Sinha
+ */
+class AccountMetricsTest {
+
+    private static final int THREADS = 8;
+    private static final int ROUNDS = 20;
+    private static final int DEPOSITS = 2000;
+
+    /**
+     * Test that each outcome of each operation is counted under its own name.
+     */
+    @Test
+    void countsEveryOutcome() {
+        AccountDatabase database = new AccountDatabase();
+        AccountMetrics metrics = new AccountMetrics(1);
+        database.setMetrics(metrics);
+        Profile holder = new Profile("John", "Doe", "1/2/1990");
+
+        assertTrue(database.open(new Checking(holder, 100)));
+        assertEquals(OperationOutcome.ALREADY_OPEN, database.openAccount(new Checking(holder, 100)));
+        assertEquals(OperationOutcome.CHECKING_LIMIT, database.openAccount(new CollegeChecking(holder, 100, 0)));
+        database.deposit(new Checking(holder, 50));
+        database.deposit(new Savings(holder, 50, 0));
+        assertTrue(database.withdraw(new Checking(holder, 25)));
+        assertFalse(database.withdraw(new Checking(holder, 1000)));
+        assertTrue(database.close(new Checking(holder, 0)));
+        assertFalse(database.close(new Checking(holder, 0)));
+        assertEquals(OperationOutcome.REOPENED, database.openAccount(new Checking(holder, 100)));
+
+        assertEquals(1, metrics.getOpened());
+        assertEquals(1, metrics.getReopened());
+        assertEquals(2, metrics.getOpenRejected());
+        assertEquals(1, metrics.getCount(AccountMetrics.Operation.OPEN, OperationOutcome.CHECKING_LIMIT));
+        assertEquals(1, metrics.getDeposits());
+        assertEquals(1, metrics.getCount("deposit", "not-found"));
+        assertEquals(1, metrics.getWithdrawals());
+        assertEquals(1, metrics.getInsufficientFunds());
+        assertEquals(1, metrics.getClosed());
+        assertEquals(1, metrics.getCount(AccountMetrics.Operation.CLOSE, OperationOutcome.ALREADY_CLOSED));
+        assertEquals(4, metrics.getLatencies(AccountMetrics.Operation.OPEN).getCount());
+    }
+
+    /**
+     * Test that deposits made at once by many threads, including threads that have since ended, are all counted.
+     * More threads are started than the metrics keep recorders by thread id for.
+     * @throws InterruptedException if the test is interrupted
+     */
+    @Test
+    void countsAreExactAcrossThreads() throws InterruptedException {
+        AccountDatabase database = new AccountDatabase();
+        AccountMetrics metrics = new AccountMetrics();
+        database.setMetrics(metrics);
+        List<Profile> holders = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            Profile holder = new Profile("Teller" + i, "Doe", "1/2/1990");
+            holders.add(holder);
+            database.open(new Checking(holder, 1));
+        }
+
+        for (int round = 0; round < ROUNDS; round++) {
+            List<Thread> threads = new ArrayList<>();
+            for (Profile holder : holders) {
+                Thread thread = new Thread(() -> {
+                    for (int d = 0; d < DEPOSITS; d++) {
+                        database.deposit(new Checking(holder, 1));
+                    }
+                    database.withdraw(new Checking(holder, Integer.MAX_VALUE));
+                });
+                threads.add(thread);
+                thread.start();
+            }
+            for (Thread thread : threads) {
+                thread.join();
+            }
+            assertEquals((long) (round + 1) * THREADS * DEPOSITS, metrics.getDeposits());
+            assertEquals((long) (round + 1) * THREADS, metrics.getInsufficientFunds());
+        }
+
+        assertEquals(0, metrics.getWithdrawals());
+        long timed = metrics.getLatencies(AccountMetrics.Operation.DEPOSIT).getCount();
+        assertEquals((long) ROUNDS * THREADS * (DEPOSITS / AccountMetrics.DEFAULT_SAMPLE_EVERY), timed);
+    }
+}
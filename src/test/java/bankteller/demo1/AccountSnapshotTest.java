@@ -0,0 +1,165 @@
+package bankteller.demo1;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * This class tests that an AccountSnapshot saves and loads every field of every account, and that snapshots taken
+ *  of a journaled database replace only the journal segments they include.
+ * @author Afsana Rahman, Mini Sinha
+ */
+class AccountSnapshotTest {
+
+    private static final Profile JOHN = new Profile("John", "Doe", "1/2/1990");
+    private static final Profile JANE = new Profile("Jane", "Roe", "3/4/1985");
+    private static final Profile ANN = new Profile("Ann", "Lee", "5/6/2001");
+
+    @TempDir
+    Path directory;
+
+    /**
+     * Test that loading a saved snapshot gives back every account with the same holder, type, balance, closed flag,
+     *  campus, loyalty, and Money Market withdrawal count, including a College Checking account with no campus and a
+     *  Money Market account that lost its loyalty.
+     * @throws IOException if the snapshot cannot be written or read
+     */
+    @Test
+    void saveAndLoadKeepEveryField() throws IOException {
+        AccountDatabase original = new AccountDatabase();
+        original.open(new Checking(JOHN, 100));
+        original.open(new CollegeChecking(JANE, 250.50, 2));
+        original.restore(new CollegeChecking(ANN, 75, -1));
+        original.open(new Savings(JOHN, 500, 1));
+        original.open(new Savings(ANN, 600, 0));
+        original.close(new Savings(ANN, 0, 0));
+        original.open(new MoneyMarket(JOHN, 3000));
+        original.open(new MoneyMarket(JANE, 4000));
+        for (int i = 0; i < 4; i++) {
+            original.withdraw(new MoneyMarket(JANE, 400));
+        }
+        original.withdraw(new MoneyMarket(JOHN, 10));
+
+        Path path = directory.resolve("accounts.snap");
+        AccountSnapshot.export(original, path);
+        AccountDatabase loaded = new AccountDatabase();
+        AccountSnapshot snapshot = AccountSnapshot.load(path, loaded);
+
+        assertEquals(original.getNumAcct(), snapshot.getNumAccounts());
+        assertEquals(0, snapshot.journalSegment);
+        Account[] expected = original.getAccounts();
+        Account[] actual = loaded.getAccounts();
+        assertEquals(expected.length, actual.length);
+        for (int i = 0; i < expected.length; i++) {
+            assertSameAccount(expected[i], actual[i]);
+        }
+        assertNull(((CollegeChecking) loaded.getAccount(new CollegeChecking(ANN, 0, 0))).getCampus());
+        MoneyMarket jane = (MoneyMarket) loaded.getAccount(new MoneyMarket(JANE, 0));
+        assertEquals(4, jane.getWithdrawals());
+        assertEquals(0, jane.getLoyal());
+        MoneyMarket john = (MoneyMarket) loaded.getAccount(new MoneyMarket(JOHN, 0));
+        assertEquals(1, john.getWithdrawals());
+        assertEquals(1, john.getLoyal());
+        assertEquals(original.print(), loaded.print());
+    }
+
+    /**
+     * Test that taking a snapshot of a journaled database deletes the segments and snapshots older than the
+     *  snapshot, and keeps the segment that later changes are written to.
+     * @throws IOException if the journal or snapshot cannot be written
+     */
+    @Test
+    void takeDeletesOnlyOlderSegments() throws IOException {
+        AccountDatabase database = new AccountDatabase();
+        try (AccountJournal journal = AccountJournal.recover(directory, database, AccountJournal.FsyncPolicy.NEVER)) {
+            database.open(new Checking(JOHN, 100));
+            Path first = AccountSnapshot.take(database, directory);
+            assertEquals(List.of("journal-0000000000000002.log", "snapshot-0000000000000002.snap"), files());
+
+            database.deposit(new Checking(JOHN, 10));
+            assertEquals(3, journal.rollSegment());
+            database.deposit(new Checking(JOHN, 20));
+            assertEquals(List.of("journal-0000000000000002.log", "journal-0000000000000003.log",
+                    "snapshot-0000000000000002.snap"), files());
+
+            Path second = AccountSnapshot.take(database, directory);
+            assertEquals(List.of("journal-0000000000000004.log", "snapshot-0000000000000004.snap"), files());
+            assertTrue(Files.notExists(first));
+            assertEquals(4, AccountSnapshot.snapshotSegment(second));
+        }
+    }
+
+    /**
+     * Test that recovering from a snapshot and the journal segments written after it rebuilds the database as it
+     *  was when the journal was closed.
+     * @throws IOException if the journal or snapshot cannot be written or read
+     */
+    @Test
+    void recoveryFromSnapshotAndTailMatchesLiveDatabase() throws IOException {
+        AccountDatabase live = new AccountDatabase();
+        AccountJournal journal = AccountJournal.recover(directory, live, AccountJournal.FsyncPolicy.ALWAYS);
+        live.open(new Checking(JOHN, 100));
+        live.open(new CollegeChecking(JANE, 250.50, 0));
+        live.open(new MoneyMarket(ANN, 3000));
+        live.withdraw(new MoneyMarket(ANN, 100));
+        AccountSnapshot.take(live, directory);
+
+        live.deposit(new Checking(JOHN, 12.34));
+        live.withdraw(new MoneyMarket(ANN, 200));
+        live.updateBalances();
+        live.close(new CollegeChecking(JANE, 0, 0));
+        live.open(new Savings(JANE, 700, 1));
+        journal.close();
+
+        AccountDatabase recovered = new AccountDatabase();
+        assertEquals(5, AccountJournal.replay(directory, recovered));
+        assertEquals(live.print(), recovered.print());
+        assertEquals(live.printFeeAndInterest(), recovered.printFeeAndInterest());
+        assertEquals(2, ((MoneyMarket) recovered.getAccount(new MoneyMarket(ANN, 0))).getWithdrawals());
+    }
+
+    /**
+     * Helper method that checks that a loaded account holds the same values as the account that was saved.
+     * @param expected account that was saved
+     * @param actual account that was loaded
+     */
+    private static void assertSameAccount(Account expected, Account actual) {
+        assertEquals(expected.getAccountType(), actual.getAccountType());
+        assertEquals(expected.getHolder(), actual.getHolder());
+        assertEquals(expected.getBalanceCents(), actual.getBalanceCents());
+        assertEquals(expected.isClosed(), actual.isClosed());
+        if (expected instanceof CollegeChecking) {
+            assertEquals(((CollegeChecking) expected).getCampus(), ((CollegeChecking) actual).getCampus());
+        }
+        if (expected instanceof Savings) {
+            assertEquals(((Savings) expected).getLoyal(), ((Savings) actual).getLoyal());
+        }
+        if (expected instanceof MoneyMarket) {
+            assertEquals(((MoneyMarket) expected).getWithdrawals(), ((MoneyMarket) actual).getWithdrawals());
+        }
+    }
+
+    /**
+     * Helper method that lists the names of the files in the journal directory, in order.
+     * @return file names
+     * @throws IOException if the directory cannot be listed
+     */
+    private List<String> files() throws IOException {
+        List<String> names = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            files.forEach(path -> names.add(path.getFileName().toString()));
+        }
+        names.sort(null);
+        return names;
+    }
+}
@@ -0,0 +1,185 @@
+package bankteller.demo1;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * This class tests the Date parser, the calendar checks made on parsed dates, and the caching of today's date.
+ * @author Afsana Rahman, Mini Sinha
+ */
+class DateTest {
+
+    private static final ZoneId ZONE = ZoneId.of("America/New_York");
+
+    /**
+     * Method that puts back the system clock after a test that moves the clock.
+     */
+    @AfterEach
+    void restoreClock() {
+        Date.setClock(Clock.systemDefaultZone());
+    }
+
+    /**
+     * Test that well-formed dates are read into their month, day, and year, with or without leading zeros.
+     */
+    @Test
+    void parsesValidDates() {
+        assertParsed("1/2/1990", 19900102);
+        assertParsed("12/31/2024", 20241231);
+        assertParsed("02/29/2000", 20000229);
+        assertParsed("007/04/1776", 17760704);
+        assertEquals("2/29/2000", Date.parse("02/29/2000").toString());
+        assertEquals(new Date("1/2/1990"), Date.fromPackedInt(Date.parse("1/2/1990").toPackedInt()));
+    }
+
+    /**
+     * Test that a date is read from the middle of a command line without the characters around it.
+     */
+    @Test
+    void parsesPartOfLine() {
+        String line = "O C John Doe 3/14/2001 100";
+        int start = line.indexOf('3');
+        Date date = Date.parse(line, start, line.indexOf(' ', start));
+        assertNotNull(date);
+        assertEquals(20010314, date.toPackedInt());
+        assertNull(Date.parse(line, start, line.length()));
+    }
+
+    /**
+     * Test that text which is not three numbers separated by "/" is rejected, and that the constructor reports it.
+     */
+    @Test
+    void rejectsMalformedDates() {
+        String[] malformed = {"", "/", "//", "1/2", "1//1990", "/1/1990", "1/2/", "a/2/1990", "1/2/199O",
+                "1-2-1990", " 1/2/1990", "1/2/1990 ", "+1/2/1990", "-1/2/1990", "1.5/2/1990",
+                "99999999999/1/1990", "1/1/2147483648"};
+        for (String text : malformed) {
+            assertNull(Date.parse(text), text);
+        }
+        assertThrows(NumberFormatException.class, () -> new Date("1/2"));
+    }
+
+    /**
+     * Test that text with more than three fields is rejected rather than read as its first three.
+     */
+    @Test
+    void rejectsExtraFields() {
+        assertNull(Date.parse("1/2/1990/5"));
+        assertNull(Date.parse("1/2/1990/"));
+        assertNull(Date.parse("1/2/3/4/5"));
+    }
+
+    /**
+     * Test that well-formed dates outside the calendar are read but are not valid, including leap days.
+     */
+    @Test
+    void outOfRangeDatesAreNotValid() {
+        String[] invalid = {"0/10/2000", "13/1/2000", "1/0/2000", "1/32/2000", "4/31/2001", "6/31/2001",
+                "9/31/2001", "11/31/2001", "2/30/2000", "2/29/1900", "2/29/2023", "100/1/2000"};
+        for (String text : invalid) {
+            Date date = Date.parse(text);
+            assertNotNull(date, text);
+            assertFalse(date.isValid(), text);
+        }
+        String[] valid = {"1/31/2000", "4/30/2001", "2/29/2000", "2/29/2024", "2/28/1900", "12/1/0"};
+        for (String text : valid) {
+            assertTrue(Date.parse(text).isValid(), text);
+        }
+        assertThrows(IllegalStateException.class, () -> Date.parse("100/1/2000").toPackedInt());
+    }
+
+    /**
+     * Test that today's date is looked up once per day: the same date is returned until midnight in the clock's
+     *  time zone, and the next day's date from midnight on.
+     */
+    @Test
+    void todayIsCachedUntilMidnight() {
+        MovableClock clock = new MovableClock(ZonedDateTime.of(2024, 2, 28, 23, 59, 59, 0, ZONE).toInstant());
+        Date.setClock(clock);
+        Date first = Date.today();
+        assertEquals(Date.parse("2/28/2024"), first);
+
+        clock.instant = clock.instant.plusMillis(999);
+        assertSame(first, Date.today());
+        assertEquals(first, new Date());
+
+        clock.instant = clock.instant.plusMillis(1);
+        Date second = Date.today();
+        assertEquals(Date.parse("2/29/2024"), second);
+        assertSame(second, Date.today());
+
+        clock.instant = ZonedDateTime.of(2024, 2, 29, 23, 59, 59, 999_000_000, ZONE).toInstant();
+        assertSame(second, Date.today());
+        clock.instant = clock.instant.plusMillis(1);
+        assertEquals(Date.parse("3/1/2024"), Date.today());
+    }
+
+    /**
+     * Helper method that checks that text is read as the given date.
+     * @param text text of the date
+     * @param packed expected date packed as yyyymmdd
+     */
+    private static void assertParsed(String text, int packed) {
+        Date date = Date.parse(text);
+        assertNotNull(date, text);
+        assertTrue(date.isValid(), text);
+        assertEquals(packed, date.toPackedInt(), text);
+    }
+
+    /**
+     * This class is a clock in a fixed time zone whose time is set by the test.
+     */
+    private static class MovableClock extends Clock {
+
+        private Instant instant;
+
+        /**
+         * Constructor that creates a clock stopped at the given time.
+         * @param instant time the clock shows
+         */
+        MovableClock(Instant instant) {
+            this.instant = instant;
+        }
+
+        /**
+         * Method that returns the time zone of the clock.
+         * @return time zone of the test
+         */
+        @Override
+        public ZoneId getZone() {
+            return ZONE;
+        }
+
+        /**
+         * Method that returns this clock, since the test only uses one time zone.
+         * @param zone ignored
+         * @return this clock
+         */
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        /**
+         * Method that returns the time the clock was last set to.
+         * @return current time of the clock
+         */
+        @Override
+        public Instant instant() {
+            return instant;
+        }
+    }
+}
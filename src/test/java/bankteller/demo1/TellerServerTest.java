@@ -0,0 +1,176 @@
+package bankteller.demo1;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * This class tests the Bank Teller server over localhost, with several teller terminals connected at once.
+ * @author Afsana Rahman, Mini Sinha
+ */
+class TellerServerTest {
+
+    private static final String HOST = "localhost";
+    private static final int SESSIONS = 8;
+    private static final int DEPOSITS = 50;
+    private static final long TIMEOUT_SECONDS = 30;
+
+    private AccountDatabase database;
+    private TellerServer server;
+    private Thread acceptor;
+    private ExecutorService terminals;
+
+    /**
+     * Method that starts a server on a free port, accepting terminals on a background thread.
+     * @throws IOException if the server cannot be started
+     */
+    @BeforeEach
+    void startServer() throws IOException {
+        database = new AccountDatabase();
+        server = new TellerServer(database, 0);
+        acceptor = new Thread(() -> {
+            try {
+                server.serve();
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        }, "teller-server-test");
+        acceptor.start();
+        terminals = Executors.newFixedThreadPool(SESSIONS);
+    }
+
+    /**
+     * Method that stops the server and the terminals.
+     * @throws Exception if the server cannot be closed or does not stop
+     */
+    @AfterEach
+    void stopServer() throws Exception {
+        terminals.shutdownNow();
+        server.close();
+        acceptor.join(TimeUnit.SECONDS.toMillis(TIMEOUT_SECONDS));
+        assertFalse(acceptor.isAlive());
+    }
+
+    /**
+     * Test that sessions working on their own accounts at the same time each get their own replies and leave every
+     *  balance exact.
+     * @throws Exception if a session fails
+     */
+    @Test
+    void concurrentSessionsKeepEveryBalance() throws Exception {
+        List<Callable<Void>> sessions = new ArrayList<>();
+        for (int i = 0; i < SESSIONS; i++) {
+            String holder = "Teller" + i + " Doe 1/2/1990";
+            sessions.add(() -> {
+                try (TellerClient client = new TellerClient(HOST, server.getPort())) {
+                    assertEquals("Account opened.\n", client.send("O C " + holder + " 100"));
+                    for (int d = 0; d < DEPOSITS; d++) {
+                        assertEquals("Deposit - balance updated.\n", client.send("D C " + holder + " 10"));
+                    }
+                    assertEquals("Withdraw - balance updated.\n", client.send("W C " + holder + " 25.50"));
+                    assertEquals("Withdraw - insufficient funds.\n", client.send("W C " + holder + " 1000"));
+                    assertEquals("Bank Teller is terminated.\n", client.send("Q"));
+                }
+                return null;
+            });
+        }
+        runAll(sessions);
+
+        assertEquals(SESSIONS, database.getNumAcct());
+        for (int i = 0; i < SESSIONS; i++) {
+            Account account = database.getAccount(new Checking(new Profile("Teller" + i, "Doe", "1/2/1990"), 0));
+            assertNotNull(account);
+            assertEquals(10000 + DEPOSITS * 1000 - 2550, account.getBalanceCents());
+        }
+    }
+
+    /**
+     * Test that when every session opens the same account at once, exactly one is told the account was opened.
+     * @throws Exception if a session fails
+     */
+    @Test
+    void concurrentOpensOfOneAccountOpenItOnce() throws Exception {
+        CountDownLatch ready = new CountDownLatch(SESSIONS);
+        List<Callable<String>> sessions = new ArrayList<>();
+        for (int i = 0; i < SESSIONS; i++) {
+            sessions.add(() -> {
+                try (TellerClient client = new TellerClient(HOST, server.getPort())) {
+                    ready.countDown();
+                    ready.await();
+                    return client.send("O S Jane Roe 3/4/1985 500 1");
+                }
+            });
+        }
+        int opened = 0;
+        for (Future<String> reply : terminals.invokeAll(sessions, TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+            String message = reply.get();
+            if (message.equals("Account opened.\n")) {
+                opened++;
+            } else {
+                assertEquals("Jane Roe 3/4/1985 same account(type) is in the database.\n", message);
+            }
+        }
+        assertEquals(1, opened);
+        assertEquals(1, database.getNumAcct());
+        assertEquals(50000, database.getAccounts()[0].getBalanceCents());
+    }
+
+    /**
+     * Test that the server lists the accounts opened by other sessions, with the window's messages.
+     * @throws IOException if the connection fails
+     */
+    @Test
+    void listingSeesAccountsOfOtherSessions() throws IOException {
+        try (TellerClient first = new TellerClient(HOST, server.getPort());
+             TellerClient second = new TellerClient(HOST, server.getPort())) {
+            assertEquals("Account database is empty!\n", second.send("P"));
+            assertEquals("Account opened.\n", first.send("O MM John Doe 1/2/1990 3000"));
+            assertEquals("Please select a campus.\n", first.send("O CC Ann Lee 5/6/2001 100 7"));
+            assertEquals("*list of accounts by account type. \n"
+                    + "Money Market Savings::John Doe 1/2/1990::Balance $3,000.00::Loyal::withdrawl: 0\n"
+                    + "*end of list*\n", second.send("PT"));
+        }
+    }
+
+    /**
+     * Test that closing the server ends the sessions of terminals waiting to send a command.
+     * @throws IOException if the connection fails before the server is closed
+     */
+    @Test
+    void closeEndsConnectedSessions() throws IOException {
+        try (TellerClient client = new TellerClient(HOST, server.getPort())) {
+            assertEquals("Account database is empty!\n", client.send("P"));
+            server.close();
+            assertThrows(IOException.class, () -> client.send("P"));
+        }
+    }
+
+    /**
+     * Helper method that runs sessions on separate terminals at the same time and waits for all of them.
+     * @param sessions sessions to run
+     * @throws Exception if a session fails or does not finish in time
+     */
+    private void runAll(List<Callable<Void>> sessions) throws Exception {
+        List<Future<Void>> results = terminals.invokeAll(sessions, TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        for (Future<Void> result : results) {
+            assertTrue(result.isDone());
+            result.get();
+        }
+    }
+}